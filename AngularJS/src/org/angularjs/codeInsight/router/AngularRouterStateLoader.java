@@ -1,16 +1,25 @@
 package org.angularjs.codeInsight.router;
 
 import com.intellij.lang.javascript.psi.*;
-import com.intellij.lang.javascript.psi.stubs.JSImplicitElement;
 import com.intellij.lang.javascript.refactoring.JSDefaultRenameProcessor;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiReference;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.util.ArrayUtil;
 import com.intellij.util.Processor;
+import com.intellij.util.containers.ContainerUtil;
 import org.angularjs.index.AngularIndexUtil;
 import org.angularjs.index.AngularUiRouterGenericStatesIndex;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 
@@ -19,6 +28,7 @@ import java.util.*;
  */
 public class AngularRouterStateLoader {
   public static final String STATE_PROVIDER = "$stateProvider";
+  private static final Key<CachedValue<List<JSObjectLiteralExpression>>> FILE_STATES_KEY = Key.create("angularjs.ui.router.file.states");
   @NotNull private final Project myProject;
   private String myStateName;
   private final static Set<String> STATE_FIELDS = new HashSet<>();
@@ -38,45 +48,93 @@ public class AngularRouterStateLoader {
   }
 
   public List<JSObjectLiteralExpression> loadFreelyDefinedStates() {
-    final List<JSObjectLiteralExpression> states = new ArrayList<>();
+    final Set<PsiFile> files = new LinkedHashSet<>();
     final Collection<String> allKeys = AngularIndexUtil.getAllKeys(AngularUiRouterGenericStatesIndex.KEY, myProject);
     for (String key : allKeys) {
-      final List<JSImplicitElement> list = new ArrayList<>();
-      AngularIndexUtil.multiResolve(myProject, AngularUiRouterGenericStatesIndex.KEY, key, list::add);
-      for (JSImplicitElement element : list) {
-        final JSCallExpression callExpression = AngularUiRouterDiagramBuilder.findWrappingCallExpression(element);
-        if (callExpression != null) {
-          findPossibleReferences(callExpression, object -> {
-            final JSProperty name = object.findProperty("name");
-            if (name != null && name.getValue() instanceof JSLiteralExpression && ((JSLiteralExpression)name.getValue()).isQuotedLiteral()) {
-              for (String field : STATE_FIELDS) {
-                if (object.findProperty(field) != null && (myStateName == null || myStateName.endsWith(StringUtil.unquoteString(name.getValue().getText())))) {
-                  states.add(object);
-                  return true;
-                }
-              }
-            }
-            return false;
-          });
-          if (myStateName != null && !states.isEmpty()) return states;
+      AngularIndexUtil.multiResolve(myProject, AngularUiRouterGenericStatesIndex.KEY, key, element -> {
+        ContainerUtil.addIfNotNull(files, element.getContainingFile());
+        return true;
+      });
+    }
+
+    final List<JSObjectLiteralExpression> states = new ArrayList<>();
+    for (PsiFile file : files) {
+      for (JSObjectLiteralExpression object : getFileStates(file)) {
+        if (myStateName == null || myStateName.endsWith(getStateName(object))) {
+          states.add(object);
         }
       }
+      if (myStateName != null && !states.isEmpty()) return states;
     }
     return states;
   }
 
+  /**
+   * States passed to generic state definitions of the file. The result is kept until the file, the files declaring the passed
+   * variables or the files holding the found state objects change, so a refresh only recomputes states of the edited files.
+   * If a passed variable can't be resolved, or resolves outside of project files, the result is kept until any PSI change.
+   */
+  @NotNull
+  private static List<JSObjectLiteralExpression> getFileStates(@NotNull final PsiFile file) {
+    return CachedValuesManager.getCachedValue(file, FILE_STATES_KEY, () -> {
+      final List<JSObjectLiteralExpression> states = new ArrayList<>();
+      final Set<Object> dependencies = new HashSet<>();
+      dependencies.add(file);
+      final Processor<JSObjectLiteralExpression> processor = object -> {
+        if (getStateName(object) != null) {
+          for (String field : STATE_FIELDS) {
+            if (object.findProperty(field) != null) {
+              states.add(object);
+              ContainerUtil.addIfNotNull(dependencies, object.getContainingFile());
+              break;
+            }
+          }
+        }
+        // collect assigned states as well, the initializer is not necessarily the only state passed
+        return false;
+      };
+
+      final Project project = file.getProject();
+      final GlobalSearchScope scope = GlobalSearchScope.fileScope(file);
+      for (String key : AngularIndexUtil.getAllKeys(AngularUiRouterGenericStatesIndex.KEY, project)) {
+        AngularIndexUtil.multiResolve(project, AngularUiRouterGenericStatesIndex.KEY, key, scope, element -> {
+          final JSCallExpression callExpression = AngularUiRouterDiagramBuilder.findWrappingCallExpression(element);
+          if (callExpression != null) {
+            findPossibleReferences(callExpression, processor, dependencies);
+          }
+          return true;
+        });
+      }
+      return CachedValueProvider.Result.create(states, ArrayUtil.toObjectArray(dependencies));
+    });
+  }
+
+  @Nullable
+  private static String getStateName(@NotNull final JSObjectLiteralExpression object) {
+    final JSProperty name = object.findProperty("name");
+    if (name != null && name.getValue() instanceof JSLiteralExpression && ((JSLiteralExpression)name.getValue()).isQuotedLiteral()) {
+      return StringUtil.unquoteString(name.getValue().getText());
+    }
+    return null;
+  }
+
   private static void findPossibleReferences(@NotNull final JSCallExpression callExpression,
-                                             @NotNull final Processor<JSObjectLiteralExpression> processor) {
+                                             @NotNull final Processor<JSObjectLiteralExpression> processor,
+                                             @NotNull final Set<Object> dependencies) {
     final JSExpression[] arguments = callExpression.getArguments();
     if (arguments.length == 1 && arguments[0] instanceof JSReferenceExpression) {
-      processReference(processor, arguments[0], 0);
+      processReference(processor, dependencies, arguments[0], 0);
     }
   }
 
-  private static void processReference(@NotNull Processor<JSObjectLiteralExpression> processor, JSExpression argument, int deepness) {
+  private static void processReference(@NotNull Processor<JSObjectLiteralExpression> processor,
+                                       @NotNull Set<Object> dependencies,
+                                       JSExpression argument,
+                                       int deepness) {
     if (deepness > 3) return;
     final JSReferenceExpression reference = (JSReferenceExpression)argument;
     final PsiElement resolved = reference.resolve();
+    addResolveDependency(dependencies, resolved);
     if (resolved != null) {
       if (resolved instanceof JSVariable && ((JSVariable)resolved).getInitializer() != null) {
         final JSExpression initializer = ((JSVariable)resolved).getInitializer();
@@ -89,6 +147,7 @@ public class AngularRouterStateLoader {
       for (PsiReference psiReference : references) {
         if (!(psiReference instanceof JSElement)) continue;
         final JSElement element = (JSElement)psiReference;
+        ContainerUtil.addIfNotNull(dependencies, element.getContainingFile());
 
         if (element.getParent() instanceof JSDefinitionExpression &&
             ((JSDefinitionExpression)element.getParent()).getExpression() == element &&
@@ -113,15 +172,16 @@ public class AngularRouterStateLoader {
             if (ARRAY_ITERATE_METHODS.contains(((JSReferenceExpression)methodExpression).getReferenceName())) {
               final JSExpression qualifier = ((JSReferenceExpression)methodExpression).getQualifier();
               if (qualifier instanceof JSArrayLiteralExpression) {
-                processArrayWithIterateCallback(processor, deepness, (JSArrayLiteralExpression)qualifier);
+                processArrayWithIterateCallback(processor, dependencies, deepness, (JSArrayLiteralExpression)qualifier);
               } else if (qualifier instanceof JSReferenceExpression) {
                 final PsiElement resolve = ((JSReferenceExpression)qualifier).resolve();
                 if (resolve != null && resolve.isValid() && resolve instanceof JSVariable) {
+                  addResolveDependency(dependencies, resolve);
                   if(((JSVariable)resolve).getInitializer() instanceof JSArrayLiteralExpression) {
-                    processArrayWithIterateCallback(processor, deepness, (JSArrayLiteralExpression)((JSVariable)resolve).getInitializer());
+                    processArrayWithIterateCallback(processor, dependencies, deepness, (JSArrayLiteralExpression)((JSVariable)resolve).getInitializer());
                   }
                 } else {
-                  processReference(processor, qualifier, deepness + 1);
+                  processReference(processor, dependencies, qualifier, deepness + 1);
                 }
               }
             }
@@ -131,7 +191,19 @@ public class AngularRouterStateLoader {
     }
   }
 
+  // a failed resolve may succeed after a change in any file, as may a resolve into a file not tracked as PSI
+  private static void addResolveDependency(@NotNull Set<Object> dependencies, @Nullable PsiElement resolved) {
+    final PsiFile file = resolved == null ? null : resolved.getContainingFile();
+    if (file != null && file.isPhysical()) {
+      dependencies.add(file);
+    }
+    else {
+      dependencies.add(PsiModificationTracker.MODIFICATION_COUNT);
+    }
+  }
+
   private static void processArrayWithIterateCallback(@NotNull Processor<JSObjectLiteralExpression> processor,
+                                                      @NotNull Set<Object> dependencies,
                                                       int deepness,
                                                       JSArrayLiteralExpression qualifier) {
     final JSExpression[] expressions = qualifier.getExpressions();
@@ -139,7 +211,7 @@ public class AngularRouterStateLoader {
       if (expression instanceof JSObjectLiteralExpression) {
         processor.process((JSObjectLiteralExpression)expression);
       } else if (expression instanceof JSReferenceExpression) {
-        processReference(processor, expression, deepness + 1);
+        processReference(processor, dependencies, expression, deepness + 1);
       }
     }
   }
@@ -12,6 +12,7 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -76,7 +77,12 @@ public class AngularUiRouterDiagramModel extends DiagramDataModel<DiagramObject>
         }
       final AngularUiRouterDiagramProvider diagramProvider = (AngularUiRouterDiagramProvider)getProvider();
       final AngularUiRouterGraphBuilder.GraphNodesBuilder model = graphBuilder.createDataModel(diagramProvider);
-      if (myNodes.equals(model.getAllNodes()) && myEdges.equals(model.getEdges())) return;
+      if (new HashSet<>(myNodes).equals(new HashSet<>(model.getAllNodes())) &&
+          new HashSet<>(myEdges).equals(new HashSet<>(model.getEdges()))) {
+        return;
+      }
+      // nodes kept from the previous graph stay where they are unless new nodes need to be placed
+      final boolean relayout = !new HashSet<>(myNodes).containsAll(model.getAllNodes());
       myNodes.clear();
       myEdges.clear();
       final AngularUiRouterProviderContext context = AngularUiRouterProviderContext.getInstance(getProject());
@@ -84,7 +90,7 @@ public class AngularUiRouterDiagramModel extends DiagramDataModel<DiagramObject>
       context.registerNodesBuilder(model);
       myNodes.addAll(model.getAllNodes());
       myEdges.addAll(model.getEdges());
-      ApplicationManager.getApplication().invokeLater(() -> getBuilder().update(true, true));
+      ApplicationManager.getApplication().invokeLater(() -> getBuilder().update(true, relayout));
     }
   }
 
@@ -92,10 +92,11 @@ public class AngularUiRouterEdge extends DiagramEdgeBase<DiagramObject> {
   public boolean equals(Object o) {
     if (this == o) return true;
     if (o == null || getClass() != o.getClass()) return false;
-    if (!super.equals(o)) return false;
 
     AngularUiRouterEdge edge = (AngularUiRouterEdge)o;
 
+    if (!getSource().equals(edge.getSource())) return false;
+    if (!getTarget().equals(edge.getTarget())) return false;
     if (myLabel != null ? !myLabel.equals(edge.myLabel) : edge.myLabel != null) return false;
     if (myType != edge.myType) return false;
     if (mySourceName != null ? !mySourceName.equals(edge.mySourceName) : edge.mySourceName != null) return false;
@@ -106,7 +107,8 @@ public class AngularUiRouterEdge extends DiagramEdgeBase<DiagramObject> {
 
   @Override
   public int hashCode() {
-    int result = super.hashCode();
+    int result = getSource().hashCode();
+    result = 31 * result + getTarget().hashCode();
     result = 31 * result + (myLabel != null ? myLabel.hashCode() : 0);
     result = 31 * result + (myType != null ? myType.hashCode() : 0);
     result = 31 * result + (mySourceName != null ? mySourceName.hashCode() : 0);
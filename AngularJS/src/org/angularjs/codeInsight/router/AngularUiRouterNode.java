@@ -2,6 +2,8 @@ package org.angularjs.codeInsight.router;
 
 import com.intellij.diagram.DiagramNodeBase;
 import com.intellij.diagram.DiagramProvider;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.SmartPsiElementPointer;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -35,23 +37,36 @@ public class AngularUiRouterNode extends DiagramNodeBase<DiagramObject> {
     return myDiagramObject;
   }
 
+  // nodes are compared by a key that survives a refresh rather than by instance, so a refreshed graph keeps the positions of
+  // surviving nodes; the key includes the file of the definition and the container, but not offsets, which change on any edit above
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
     if (o == null || getClass() != o.getClass()) return false;
-    if (!super.equals(o)) return false;
 
-    AngularUiRouterNode node = (AngularUiRouterNode)o;
-
-    if (!myDiagramObject.equals(node.myDiagramObject)) return false;
-
-    return true;
+    return getIdentityKey().equals(((AngularUiRouterNode)o).getIdentityKey());
   }
 
   @Override
   public int hashCode() {
-    int result = super.hashCode();
-    result = 31 * result + myDiagramObject.hashCode();
-    return result;
+    return getIdentityKey().hashCode();
+  }
+
+  @NotNull
+  private String getIdentityKey() {
+    final StringBuilder sb = new StringBuilder();
+    sb.append(myDiagramObject.getType()).append(':').append(myDiagramObject.getName()).append(':').append(myDiagramObject.getTooltip());
+
+    final SmartPsiElementPointer target = myDiagramObject.getNavigationTarget();
+    final VirtualFile file = target == null ? null : target.getVirtualFile();
+    if (file != null) {
+      sb.append(':').append(file.getUrl());
+    }
+
+    final AngularUiRouterNode container = myDiagramObject.getContainer();
+    if (container != null) {
+      sb.append(" in ").append(container.getIdentityKey());
+    }
+    return sb.toString();
   }
 }
@@ -74,7 +74,14 @@ public class AngularIndexUtil {
                                    final StubIndexKey<String, JSImplicitElementProvider> index,
                                    final String lookupKey,
                                    final Processor<JSImplicitElement> processor) {
-    final GlobalSearchScope scope = GlobalSearchScope.allScope(project);
+    multiResolve(project, index, lookupKey, GlobalSearchScope.allScope(project), processor);
+  }
+
+  public static void multiResolve(Project project,
+                                  final StubIndexKey<String, JSImplicitElementProvider> index,
+                                  final String lookupKey,
+                                  final GlobalSearchScope scope,
+                                  final Processor<JSImplicitElement> processor) {
     StubIndex.getInstance().processElements(
       index, lookupKey, project, scope, JSImplicitElementProvider.class, provider -> {
         final JSElementIndexingData indexingData = provider.getIndexingData();
@@ -20,10 +20,9 @@ import com.intellij.openapi.util.Condition;
 import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.registry.Registry;
 import com.intellij.openapi.vfs.*;
-import com.intellij.psi.search.FilenameIndex;
-import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.util.PathUtil;
 import com.intellij.util.SmartList;
+import com.intellij.util.containers.ContainerUtil;
 import com.jetbrains.lang.dart.sdk.DartPackagesLibraryProperties;
 import com.jetbrains.lang.dart.sdk.DartPackagesLibraryType;
 import com.jetbrains.lang.dart.sdk.DartSdkLibUtil;
@@ -54,39 +53,51 @@ public class DartFileListener extends VirtualFileAdapter {
   @Override
   public void propertyChanged(@NotNull VirtualFilePropertyEvent event) {
     if (VirtualFile.PROP_NAME.equals(event.getPropertyName())) {
-      fileChanged(myProject, event.getFile());
+      fileChanged(myProject, event.getFile(), false);
     }
   }
 
   @Override
   public void contentsChanged(@NotNull VirtualFileEvent event) {
-    fileChanged(myProject, event.getFile());
+    fileChanged(myProject, event.getFile(), true);
   }
 
   @Override
   public void fileCreated(@NotNull VirtualFileEvent event) {
-    fileChanged(myProject, event.getFile());
+    fileChanged(myProject, event.getFile(), false);
   }
 
   @Override
   public void fileDeleted(@NotNull VirtualFileEvent event) {
-    fileChanged(myProject, event.getFile());
+    fileChanged(myProject, event.getFile(), false);
   }
 
   @Override
   public void fileMoved(@NotNull VirtualFileMoveEvent event) {
-    fileChanged(myProject, event.getFile());
+    fileChanged(myProject, event.getFile(), false);
   }
 
   @Override
   public void fileCopied(@NotNull VirtualFileCopyEvent event) {
-    fileChanged(myProject, event.getFile());
+    fileChanged(myProject, event.getFile(), false);
   }
 
-  private static void fileChanged(@NotNull final Project project, @NotNull final VirtualFile file) {
+  private static void fileChanged(@NotNull final Project project, @NotNull final VirtualFile file, final boolean contentOnly) {
+    if (!contentOnly && PUBSPEC_YAML.equals(file.getName())) {
+      DartPackageRootsCache.getInstance(project).fileSetChanged();
+      return;
+    }
+
     if (!DotPackagesFileUtil.DOT_PACKAGES.equals(file.getName())) return;
     if (LocalFileSystem.getInstance() != file.getFileSystem() && !ApplicationManager.getApplication().isUnitTestMode()) return;
 
+    if (contentOnly) {
+      DartPackageRootsCache.getInstance(project).dotPackagesFileContentChanged(file);
+    }
+    else {
+      DartPackageRootsCache.getInstance(project).fileSetChanged();
+    }
+
     final VirtualFile parent = file.getParent();
     final VirtualFile pubspec = parent == null ? null : parent.findChild(PUBSPEC_YAML);
 
@@ -100,6 +111,15 @@ public class DartFileListener extends VirtualFileAdapter {
     }
   }
 
+  /**
+   * Module roots define which <code>.packages</code> files are taken into account and which packages are outside of project content,
+   * so cached per-file data is not valid any more.
+   */
+  static void projectRootsChanged(@NotNull final Project project) {
+    DartPackageRootsCache.getInstance(project).projectRootsChanged();
+    scheduleDartPackageRootsUpdate(project);
+  }
+
   /**
    * Make sure to set it to <code>false</code> in the corresponding <code>finally</code> block
    */
@@ -122,6 +142,8 @@ public class DartFileListener extends VirtualFileAdapter {
     setDartPackageRootUpdateScheduledOrInProgress(project, Boolean.TRUE);
 
     final Runnable runnable = () -> {
+      final DartPackageRootsCache cache = DartPackageRootsCache.getInstance(project);
+      cache.setUpdateInProgress(true);
       try {
         final Library library = actualizePackagesLibrary(project);
 
@@ -135,6 +157,7 @@ public class DartFileListener extends VirtualFileAdapter {
         }
       }
       finally {
+        cache.setUpdateInProgress(false);
         setDartPackageRootUpdateScheduledOrInProgress(project, false);
       }
     };
@@ -149,7 +172,7 @@ public class DartFileListener extends VirtualFileAdapter {
 
   @Nullable
   private static Library actualizePackagesLibrary(@NotNull final Project project) {
-    final DartLibInfo libInfo = collectPackagesLibraryRoots(project);
+    final DartLibInfo libInfo = DartPackageRootsCache.getInstance(project).collectPackagesLibraryRoots(project);
 
     if (libInfo.getLibRootUrls().isEmpty()) {
       return null;
@@ -159,38 +182,6 @@ public class DartFileListener extends VirtualFileAdapter {
     }
   }
 
-  @NotNull
-  private static DartLibInfo collectPackagesLibraryRoots(@NotNull final Project project) {
-    final DartLibInfo libInfo = new DartLibInfo(false);
-
-    final Collection<VirtualFile> pubspecYamlFiles =
-      FilenameIndex.getVirtualFilesByName(project, PUBSPEC_YAML, GlobalSearchScope.projectScope(project));
-    final ProjectFileIndex fileIndex = ProjectRootManager.getInstance(project).getFileIndex();
-
-    for (VirtualFile pubspecFile : pubspecYamlFiles) {
-      final VirtualFile dotPackagesFile = pubspecFile.getParent().findChild(DotPackagesFileUtil.DOT_PACKAGES);
-      final Module module = dotPackagesFile == null ? null : fileIndex.getModuleForFile(dotPackagesFile);
-
-      if (dotPackagesFile != null &&
-          !dotPackagesFile.isDirectory() &&
-          module != null &&
-          DartSdkLibUtil.isDartSdkEnabled(module)) {
-        final Map<String, String> packagesMap = DotPackagesFileUtil.getPackagesMap(dotPackagesFile);
-        if (packagesMap != null) {
-          for (Map.Entry<String, String> entry : packagesMap.entrySet()) {
-            final String packageName = entry.getKey();
-            final String packagePath = entry.getValue();
-            if (isPathOutsideProjectContent(fileIndex, packagePath)) {
-              libInfo.addPackage(packageName, packagePath);
-            }
-          }
-        }
-      }
-    }
-
-    return libInfo;
-  }
-
   @NotNull
   public static Library updatePackagesLibraryRoots(@NotNull final Project project, @NotNull final DartLibInfo libInfo) {
     final LibraryTable projectLibraryTable = ProjectLibraryTable.getInstance(project);
@@ -215,12 +206,18 @@ public class DartFileListener extends VirtualFileAdapter {
         !libRootUrls.containsAll(Arrays.asList(existingUrls))) {
       ApplicationManager.getApplication().runWriteAction(() -> {
         final LibraryEx.ModifiableModelEx model = (LibraryEx.ModifiableModelEx)library.getModifiableModel();
+        // patch roots instead of replacing all of them, so that only really changed roots are rescanned
         for (String url : existingUrls) {
-          model.removeRoot(url, OrderRootType.CLASSES);
+          if (!libRootUrls.contains(url)) {
+            model.removeRoot(url, OrderRootType.CLASSES);
+          }
         }
 
+        final Set<String> existingUrlSet = ContainerUtil.newTroveSet(existingUrls);
         for (String url : libRootUrls) {
-          model.addRoot(url, OrderRootType.CLASSES);
+          if (!existingUrlSet.contains(url)) {
+            model.addRoot(url, OrderRootType.CLASSES);
+          }
         }
 
         final DartPackagesLibraryProperties libraryProperties = new DartPackagesLibraryProperties();
@@ -270,7 +267,21 @@ public class DartFileListener extends VirtualFileAdapter {
     }
   }
 
+  private static boolean hasDependencyOnDartPackagesLibrary(@NotNull final OrderEntry[] orderEntries) {
+    for (final OrderEntry orderEntry : orderEntries) {
+      if (orderEntry instanceof LibraryOrderEntry &&
+          LibraryTablesRegistrar.PROJECT_LEVEL.equals(((LibraryOrderEntry)orderEntry).getLibraryLevel()) &&
+          DartPackagesLibraryType.DART_PACKAGES_LIBRARY_NAME.equals(((LibraryOrderEntry)orderEntry).getLibraryName())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private static void removeDependencyOnDartPackagesLibrary(@NotNull final Module module) {
+    // for performance reasons avoid creating modifiable models for modules that don't need to be changed
+    if (!hasDependencyOnDartPackagesLibrary(ModuleRootManager.getInstance(module).getOrderEntries())) return;
+
     final ModifiableRootModel modifiableModel = ModuleRootManager.getInstance(module).getModifiableModel();
     try {
       for (final OrderEntry orderEntry : modifiableModel.getOrderEntries()) {
@@ -293,15 +304,11 @@ public class DartFileListener extends VirtualFileAdapter {
   }
 
   private static void addDependencyOnDartPackagesLibrary(@NotNull final Module module, @NotNull final Library library) {
+    if (hasDependencyOnDartPackagesLibrary(ModuleRootManager.getInstance(module).getOrderEntries())) return; // dependency already exists
+
     final ModifiableRootModel modifiableModel = ModuleRootManager.getInstance(module).getModifiableModel();
     try {
-      for (final OrderEntry orderEntry : modifiableModel.getOrderEntries()) {
-        if (orderEntry instanceof LibraryOrderEntry &&
-            LibraryTablesRegistrar.PROJECT_LEVEL.equals(((LibraryOrderEntry)orderEntry).getLibraryLevel()) &&
-            DartPackagesLibraryType.DART_PACKAGES_LIBRARY_NAME.equals(((LibraryOrderEntry)orderEntry).getLibraryName())) {
-          return; // dependency already exists
-        }
-      }
+      if (hasDependencyOnDartPackagesLibrary(modifiableModel.getOrderEntries())) return;
 
       modifiableModel.addLibraryEntry(library);
 
@@ -314,7 +321,7 @@ public class DartFileListener extends VirtualFileAdapter {
     }
   }
 
-  private static boolean isPathOutsideProjectContent(@NotNull final ProjectFileIndex fileIndex, @NotNull String path) {
+  static boolean isPathOutsideProjectContent(@NotNull final ProjectFileIndex fileIndex, @NotNull String path) {
     if (ApplicationManager.getApplication().isUnitTestMode() && path.contains("/pub/global/cache/")) {
       return true;
     }
@@ -341,7 +348,7 @@ public class DartFileListener extends VirtualFileAdapter {
       myProjectWithoutPubspec = projectWithoutPubspec;
     }
 
-    private void addPackage(@NotNull final String packageName, @NotNull final String packagePath) {
+    void addPackage(@NotNull final String packageName, @NotNull final String packagePath) {
       myLibRootUrls.add(VfsUtilCore.pathToUrl(packagePath));
 
       List<String> paths = myPackagesMap.get((packageName));
@@ -0,0 +1,130 @@
+package com.jetbrains.lang.dart;
+
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.UserDataHolderEx;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.FilenameIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.jetbrains.lang.dart.sdk.DartSdkLibUtil;
+import com.jetbrains.lang.dart.util.DotPackagesFileUtil;
+import gnu.trove.THashMap;
+import gnu.trove.THashSet;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import static com.jetbrains.lang.dart.util.PubspecYamlUtil.PUBSPEC_YAML;
+
+/**
+ * Remembers which packages each <code>.packages</code> file contributes to the Dart Packages library, so that a change
+ * in one <code>.packages</code> file doesn't require re-reading all others. The list of <code>.packages</code> files is
+ * re-queried from the index only after project roots change or a <code>.packages</code> or <code>pubspec.yaml</code> file
+ * is created, deleted, moved or renamed.
+ */
+class DartPackageRootsCache {
+
+  private static final Key<DartPackageRootsCache> DART_PACKAGE_ROOTS_CACHE = Key.create("DART_PACKAGE_ROOTS_CACHE");
+
+  // .packages file -> packages (name to path) that are outside of project content; null value means not yet (re)computed
+  private final Map<VirtualFile, Map<String, String>> myDotPackagesFileToPackages = new THashMap<>();
+  private boolean myDotPackagesFilesUpToDate;
+  private boolean myUpdateInProgress;
+
+  @NotNull
+  static DartPackageRootsCache getInstance(@NotNull final Project project) {
+    DartPackageRootsCache cache = project.getUserData(DART_PACKAGE_ROOTS_CACHE);
+    if (cache == null) {
+      cache = ((UserDataHolderEx)project).putUserDataIfAbsent(DART_PACKAGE_ROOTS_CACHE, new DartPackageRootsCache());
+    }
+    return cache;
+  }
+
+  synchronized void dotPackagesFileContentChanged(@NotNull final VirtualFile dotPackagesFile) {
+    if (myDotPackagesFileToPackages.containsKey(dotPackagesFile)) {
+      myDotPackagesFileToPackages.put(dotPackagesFile, null);
+    }
+    else {
+      myDotPackagesFilesUpToDate = false;
+    }
+  }
+
+  synchronized void fileSetChanged() {
+    myDotPackagesFilesUpToDate = false;
+  }
+
+  synchronized void setUpdateInProgress(final boolean updateInProgress) {
+    myUpdateInProgress = updateInProgress;
+  }
+
+  synchronized void projectRootsChanged() {
+    // roots changes caused by the update itself (Dart Packages library roots or module dependencies) don't affect cached data
+    if (myUpdateInProgress) return;
+
+    myDotPackagesFileToPackages.clear();
+    myDotPackagesFilesUpToDate = false;
+  }
+
+  @NotNull
+  synchronized DartFileListener.DartLibInfo collectPackagesLibraryRoots(@NotNull final Project project) {
+    final ProjectFileIndex fileIndex = ProjectRootManager.getInstance(project).getFileIndex();
+
+    if (!myDotPackagesFilesUpToDate) {
+      final Set<VirtualFile> actualFiles = new THashSet<>();
+      for (VirtualFile pubspecFile : FilenameIndex.getVirtualFilesByName(project, PUBSPEC_YAML, GlobalSearchScope.projectScope(project))) {
+        final VirtualFile dotPackagesFile = pubspecFile.getParent().findChild(DotPackagesFileUtil.DOT_PACKAGES);
+        if (dotPackagesFile != null && !dotPackagesFile.isDirectory()) {
+          actualFiles.add(dotPackagesFile);
+        }
+      }
+
+      myDotPackagesFileToPackages.keySet().retainAll(actualFiles);
+      for (VirtualFile file : actualFiles) {
+        if (!myDotPackagesFileToPackages.containsKey(file)) {
+          myDotPackagesFileToPackages.put(file, null);
+        }
+      }
+
+      myDotPackagesFilesUpToDate = true;
+    }
+
+    final DartFileListener.DartLibInfo libInfo = new DartFileListener.DartLibInfo(false);
+
+    for (Map.Entry<VirtualFile, Map<String, String>> entry : myDotPackagesFileToPackages.entrySet()) {
+      Map<String, String> packages = entry.getValue();
+      if (packages == null) {
+        packages = computePackagesOutsideProjectContent(fileIndex, entry.getKey());
+        entry.setValue(packages);
+      }
+
+      for (Map.Entry<String, String> packageEntry : packages.entrySet()) {
+        libInfo.addPackage(packageEntry.getKey(), packageEntry.getValue());
+      }
+    }
+
+    return libInfo;
+  }
+
+  @NotNull
+  private static Map<String, String> computePackagesOutsideProjectContent(@NotNull final ProjectFileIndex fileIndex,
+                                                                          @NotNull final VirtualFile dotPackagesFile) {
+    final Module module = dotPackagesFile.isValid() ? fileIndex.getModuleForFile(dotPackagesFile) : null;
+    if (module == null || !DartSdkLibUtil.isDartSdkEnabled(module)) return Collections.emptyMap();
+
+    final Map<String, String> packagesMap = DotPackagesFileUtil.getPackagesMap(dotPackagesFile);
+    if (packagesMap == null) return Collections.emptyMap();
+
+    final Map<String, String> result = new THashMap<>();
+    for (Map.Entry<String, String> entry : packagesMap.entrySet()) {
+      if (DartFileListener.isPathOutsideProjectContent(fileIndex, entry.getValue())) {
+        result.put(entry.getKey(), entry.getValue());
+      }
+    }
+    return result;
+  }
+}
@@ -55,7 +55,7 @@ public class DartProjectComponent extends AbstractProjectComponent {
         myProjectRootsModificationTracker.incModificationCount();
 
         if (!Registry.is("dart.projects.without.pubspec", false)) {
-          DartFileListener.scheduleDartPackageRootsUpdate(myProject);
+          DartFileListener.projectRootsChanged(myProject);
         }
       }
     });
@@ -46,6 +46,7 @@ import com.intellij.psi.PsiFileSystemItem;
 import com.intellij.psi.search.FilenameIndex;
 import com.intellij.util.Alarm;
 import com.intellij.util.Consumer;
+import com.intellij.util.PairConsumer;
 import com.intellij.util.PathUtil;
 import com.intellij.util.Processor;
 import com.intellij.util.concurrency.QueueProcessor;
@@ -74,7 +75,9 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class DartAnalysisServerService implements Disposable {
 
@@ -1105,13 +1108,7 @@ public class DartAnalysisServerService implements Disposable {
 
       @Override
       public void onError(final RequestError error) {
-        if (RequestErrorCode.FORMAT_WITH_ERRORS.equals(error.getCode()) || RequestErrorCode.FORMAT_INVALID_FILE.equals(error.getCode())) {
-          LOG.info(getShortErrorMessage("edit_format()", filePath, error));
-        }
-        else {
-          logError("edit_format()", filePath, error);
-        }
-
+        logFormatError(filePath, error);
         latch.countDown();
       }
     });
@@ -1125,6 +1122,91 @@ public class DartAnalysisServerService implements Disposable {
     return resultRef.get();
   }
 
+  /**
+   * Formats whole files keeping up to <code>maxRequestsInFlight</code> requests sent to the server at a time instead of waiting for
+   * each response before sending the next request. <code>consumer</code> is called in a server thread for each successfully formatted
+   * file, in no particular order. Returns when all responses are received, or if the server doesn't respond for too long.
+   * Responses that come after this method has returned are ignored.
+   */
+  public void edit_format(@NotNull final List<VirtualFile> files,
+                          final int lineLength,
+                          final int maxRequestsInFlight,
+                          @NotNull final PairConsumer<VirtualFile, FormatResult> consumer) {
+    final AnalysisServer server = myServer;
+    if (server == null) return;
+
+    formatFiles(server, files, lineLength, maxRequestsInFlight, EDIT_FORMAT_TIMEOUT, consumer, this::logFormatError);
+  }
+
+  static void formatFiles(@NotNull final AnalysisServer server,
+                          @NotNull final List<VirtualFile> files,
+                          final int lineLength,
+                          final int maxRequestsInFlight,
+                          final long timeoutInMillis,
+                          @NotNull final PairConsumer<VirtualFile, FormatResult> consumer,
+                          @NotNull final PairConsumer<String, RequestError> errorConsumer) {
+    final Semaphore freeSlots = new Semaphore(maxRequestsInFlight);
+    // set when this method returns (also on timeout and cancellation), consumers are called under its lock, so none is called after that
+    final AtomicBoolean finished = new AtomicBoolean();
+    try {
+      for (final VirtualFile file : files) {
+        if (!acquireCheckingCanceled(server, freeSlots, timeoutInMillis)) {
+          LOG.info("edit_format() took too long, " + files.size() + " files requested");
+          return;
+        }
+
+        final String filePath = FileUtil.toSystemDependentName(file.getPath());
+        server.edit_format(filePath, 0, 0, lineLength, new FormatConsumer() {
+          @Override
+          public void computedFormat(final List<SourceEdit> edits, final int selectionOffset, final int selectionLength) {
+            try {
+              synchronized (finished) {
+                if (!finished.get()) {
+                  consumer.consume(file, new FormatResult(edits, selectionOffset, selectionLength));
+                }
+              }
+            }
+            finally {
+              freeSlots.release();
+            }
+          }
+
+          @Override
+          public void onError(final RequestError error) {
+            synchronized (finished) {
+              if (!finished.get()) {
+                errorConsumer.consume(filePath, error);
+              }
+            }
+            freeSlots.release();
+          }
+        });
+      }
+
+      // wait for the last responses
+      for (int i = 0; i < maxRequestsInFlight; i++) {
+        if (!acquireCheckingCanceled(server, freeSlots, timeoutInMillis)) {
+          LOG.info("edit_format() took too long, " + files.size() + " files requested");
+          return;
+        }
+      }
+    }
+    finally {
+      synchronized (finished) {
+        finished.set(true);
+      }
+    }
+  }
+
+  private void logFormatError(@NotNull final String filePath, @NotNull final RequestError error) {
+    if (RequestErrorCode.FORMAT_WITH_ERRORS.equals(error.getCode()) || RequestErrorCode.FORMAT_INVALID_FILE.equals(error.getCode())) {
+      LOG.info(getShortErrorMessage("edit_format()", filePath, error));
+    }
+    else {
+      logError("edit_format()", filePath, error);
+    }
+  }
+
   public boolean edit_getRefactoring(String kind,
                                      VirtualFile file,
                                      int _offset,
@@ -1621,6 +1703,32 @@ public class DartAnalysisServerService implements Disposable {
     }
   }
 
+  private static boolean acquireCheckingCanceled(@NotNull final AnalysisServer server,
+                                                 @NotNull final Semaphore semaphore,
+                                                 final long timeoutInMillis) {
+    // waiting under write action blocks server notifications handling that require read action
+    LOG.assertTrue(!ApplicationManager.getApplication().isWriteAccessAllowed());
+
+    long startTime = System.currentTimeMillis();
+    while (true) {
+      ProgressManager.checkCanceled();
+      if (!server.isSocketOpen()) {
+        return false;
+      }
+      if (System.currentTimeMillis() > startTime + timeoutInMillis) {
+        return false;
+      }
+      try {
+        if (semaphore.tryAcquire(CHECK_CANCELLED_PERIOD, TimeUnit.MILLISECONDS)) {
+          return true;
+        }
+      }
+      catch (InterruptedException e) {
+        return false;
+      }
+    }
+  }
+
   /**
    * see {@link DartQuickAssistIntention}
    */
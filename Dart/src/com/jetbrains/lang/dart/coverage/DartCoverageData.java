@@ -15,82 +15,136 @@
  */
 package com.jetbrains.lang.dart.coverage;
 
-import com.intellij.util.containers.hash.HashMap;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import gnu.trove.THashMap;
+import gnu.trove.TIntArrayList;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.List;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
 import java.util.Map;
-import java.util.SortedMap;
-import java.util.TreeMap;
 
+/**
+ * Line hits read from the coverage file written by Dart VM. The file is read as a stream and hits of all its entries for the same
+ * source are summed up straight into an int array indexed by line number, so that even huge files are loaded without building
+ * an object per hit.
+ */
 public class DartCoverageData {
-  @Nullable private List<DartFileCoverageData> coverage;
+  // value for lines that are not mentioned in the coverage file, i.e. lines without executable code
+  public static final int NO_CODE = -1;
 
-  @Nullable
-  public List<DartFileCoverageData> getCoverage() {
-    return coverage;
-  }
+  private final Map<String, TIntArrayList> mySourceToLineHits = new THashMap<>();
+  private final TIntArrayList myHitsBuffer = new TIntArrayList();
 
-  public void setCoverage(@Nullable List<DartFileCoverageData> coverage) {
-    this.coverage = coverage;
+  private DartCoverageData() {
   }
 
-  @NotNull
-  public Map<String, SortedMap<Integer, Integer>> getMergedDartFileCoverageData() {
-    Map<String, SortedMap<Integer, Integer>> mergedCoverageData = new HashMap<>();
-    List<DartFileCoverageData> coverageData = getCoverage();
-    if (coverageData != null) {
-      for (DartFileCoverageData item : coverageData) {
-        String source = item.getSource();
-        if (source == null) {
-          continue;
-        }
-        if (!mergedCoverageData.containsKey(source)) {
-          mergedCoverageData.put(source, new TreeMap<>());
-        }
+  /**
+   * @return <code>null</code> if the file is empty
+   */
+  @Nullable
+  public static DartCoverageData read(@NotNull final Reader reader) throws IOException, JsonSyntaxException {
+    final JsonReader json = new JsonReader(reader);
+    json.setLenient(true);
 
-        SortedMap<Integer, Integer> fileData = mergedCoverageData.get(source);
-        List<Integer> hits = item.getHits();
-        if (hits == null) {
-          continue;
-        }
-        for (int i = 0; i < hits.size(); i += 2) {
-          Integer lineNumber = hits.get(i);
-          Integer hitCount = hits.get(i + 1);
-          if (!fileData.containsKey(lineNumber)) {
-            fileData.put(lineNumber, 0);
-          }
+    try {
+      json.peek();
+    }
+    catch (EOFException e) {
+      return null;
+    }
 
-          fileData.put(lineNumber, fileData.get(lineNumber) + hitCount);
+    final DartCoverageData data = new DartCoverageData();
+    try {
+      json.beginObject();
+      while (json.hasNext()) {
+        if ("coverage".equals(json.nextName()) && json.peek() == JsonToken.BEGIN_ARRAY) {
+          json.beginArray();
+          while (json.hasNext()) {
+            data.readSourceCoverage(json);
+          }
+          json.endArray();
+        }
+        else {
+          json.skipValue();
         }
       }
+      json.endObject();
+    }
+    catch (IllegalStateException | NumberFormatException e) {
+      throw new JsonSyntaxException(e);
     }
 
-    return mergedCoverageData;
+    return data;
+  }
+
+  /**
+   * @return hit counts indexed by line number ({@link #NO_CODE} for lines without code), each array ends with the last line having code
+   */
+  @NotNull
+  public Map<String, int[]> getSourceToLineHits() {
+    final Map<String, int[]> result = new THashMap<>(mySourceToLineHits.size());
+    for (Map.Entry<String, TIntArrayList> entry : mySourceToLineHits.entrySet()) {
+      result.put(entry.getKey(), entry.getValue().toNativeArray());
+    }
+    return result;
   }
-}
 
+  // {"source": "file:///foo.dart", "hits": [line1, hits1, line2, hits2, ...]}, hits may come before the source
+  private void readSourceCoverage(@NotNull final JsonReader json) throws IOException {
+    if (json.peek() != JsonToken.BEGIN_OBJECT) {
+      json.skipValue();
+      return;
+    }
 
-class DartFileCoverageData {
-  @Nullable private String source;
-  @Nullable private List<Integer> hits;
+    String source = null;
+    myHitsBuffer.resetQuick();
 
-  @Nullable
-  public String getSource() {
-    return source;
-  }
+    json.beginObject();
+    while (json.hasNext()) {
+      final String name = json.nextName();
+      if ("source".equals(name) && json.peek() == JsonToken.STRING) {
+        source = json.nextString();
+      }
+      else if ("hits".equals(name) && json.peek() == JsonToken.BEGIN_ARRAY) {
+        json.beginArray();
+        while (json.hasNext()) {
+          myHitsBuffer.add(json.nextInt());
+        }
+        json.endArray();
+      }
+      else {
+        json.skipValue();
+      }
+    }
+    json.endObject();
 
-  public void setSource(@Nullable String source) {
-    this.source = source;
+    if (source != null) {
+      mergeHits(source);
+    }
   }
 
-  @Nullable
-  public List<Integer> getHits() {
-    return hits;
-  }
+  private void mergeHits(@NotNull final String source) {
+    TIntArrayList lineHits = mySourceToLineHits.get(source);
+    if (lineHits == null) {
+      lineHits = new TIntArrayList();
+      mySourceToLineHits.put(source, lineHits);
+    }
+
+    for (int i = 0; i + 1 < myHitsBuffer.size(); i += 2) {
+      final int line = myHitsBuffer.getQuick(i);
+      if (line < 0) continue;
 
-  public void setHits(@Nullable List<Integer> hits) {
-    this.hits = hits;
+      while (lineHits.size() <= line) {
+        lineHits.add(NO_CODE);
+      }
+
+      final int hits = lineHits.getQuick(line);
+      lineHits.setQuick(line, (hits == NO_CODE ? 0 : hits) + myHitsBuffer.getQuick(i + 1));
+    }
   }
-}
\ No newline at end of file
+}
@@ -11,26 +11,41 @@ import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.CharsetToolkit;
 import com.intellij.openapi.vfs.ReadonlyStatusHandler;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.codeStyle.CodeStyleSettingsManager;
+import com.intellij.util.containers.ContainerUtil;
 import com.jetbrains.lang.dart.DartBundle;
 import com.jetbrains.lang.dart.DartLanguage;
 import com.jetbrains.lang.dart.analyzer.DartAnalysisServerService;
 import gnu.trove.THashMap;
 import org.dartlang.analysis.server.protocol.SourceEdit;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class DartStyleAction extends AbstractDartFileProcessingAction {
 
   private static final Logger LOG = Logger.getInstance(DartStyleAction.class.getName());
 
+  // edit_format requests sent to the server at a time when formatting many files
+  private static final int MAX_FORMAT_REQUESTS_IN_FLIGHT = 16;
+  // line length and SHA-1 of the file content that was produced or left as is by the formatter
+  private static final Key<Pair<Integer, String>> FORMATTED_CONTENT_DIGEST = Key.create("DART_STYLE_FORMATTED_CONTENT_DIGEST");
+
   public DartStyleAction() {
     super(DartBundle.message("dart.style.action.name"), DartBundle.message("dart.style.action.description"), null);
   }
@@ -97,27 +112,52 @@ public class DartStyleAction extends AbstractDartFileProcessingAction {
       return;
     }
 
-    final Map<VirtualFile, String> fileToNewContentMap = new THashMap<>();
+    final Map<VirtualFile, String> fileToNewContentMap = ContainerUtil.newConcurrentMap();
     final int lineLength = getRightMargin(project);
 
     final Runnable runnable = () -> {
-      double fraction = 0.0;
-      for (final VirtualFile virtualFile : dartFiles) {
-        fraction += 1.0;
-        final ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+      final ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+
+      // files that haven't changed since they were formatted last time are not sent to the server
+      final List<VirtualFile> filesToFormat = new ArrayList<>();
+      final Map<VirtualFile, String> fileToContentDigest = new THashMap<>();
+      for (VirtualFile virtualFile : dartFiles) {
         if (indicator != null) {
           indicator.checkCanceled();
-          indicator.setFraction(fraction / dartFiles.size());
-          indicator.setText2(FileUtil.toSystemDependentName(virtualFile.getPath()));
         }
 
-        final DartAnalysisServerService.FormatResult formatResult =
-          DartAnalysisServerService.getInstance(project).edit_format(virtualFile, 0, 0, lineLength);
-        if (formatResult != null && formatResult.getEdits() != null && formatResult.getEdits().size() == 1) {
-          final String replacement = StringUtil.convertLineSeparators(formatResult.getEdits().get(0).getReplacement());
-          fileToNewContentMap.put(virtualFile, replacement);
+        final String contentDigest = getContentDigest(virtualFile);
+        final Pair<Integer, String> formattedDigest = virtualFile.getUserData(FORMATTED_CONTENT_DIGEST);
+        if (contentDigest != null && formattedDigest != null && formattedDigest.first == lineLength &&
+            formattedDigest.second.equals(contentDigest)) {
+          continue;
         }
+
+        filesToFormat.add(virtualFile);
+        fileToContentDigest.put(virtualFile, contentDigest);
       }
+
+      final AtomicInteger processedCount = new AtomicInteger();
+
+      DartAnalysisServerService.getInstance(project).edit_format(filesToFormat, lineLength, MAX_FORMAT_REQUESTS_IN_FLIGHT,
+        (virtualFile, formatResult) -> {
+          if (indicator != null) {
+            indicator.setFraction((double)processedCount.incrementAndGet() / filesToFormat.size());
+            indicator.setText2(FileUtil.toSystemDependentName(virtualFile.getPath()));
+          }
+
+          final List<SourceEdit> edits = formatResult.getEdits();
+          if (edits != null && edits.size() == 1) {
+            final String replacement = StringUtil.convertLineSeparators(edits.get(0).getReplacement());
+            fileToNewContentMap.put(virtualFile, replacement);
+          }
+          else if (edits == null || edits.isEmpty()) {
+            final String contentDigest = fileToContentDigest.get(virtualFile);
+            if (contentDigest != null) {
+              virtualFile.putUserData(FORMATTED_CONTENT_DIGEST, Pair.create(lineLength, contentDigest));
+            }
+          }
+        });
     };
 
     DartAnalysisServerService.getInstance(project).updateFilesContent();
@@ -136,6 +176,7 @@ public class DartStyleAction extends AbstractDartFileProcessingAction {
 
           if (document != null && newContent != null) {
             document.setText(newContent);
+            file.putUserData(FORMATTED_CONTENT_DIGEST, Pair.create(lineLength, getDigest(newContent)));
           }
         }
       };
@@ -145,6 +186,25 @@ public class DartStyleAction extends AbstractDartFileProcessingAction {
     }
   }
 
+  @Nullable
+  private static String getContentDigest(@NotNull final VirtualFile file) {
+    return ApplicationManager.getApplication().runReadAction((Computable<String>)() -> {
+      final Document document = FileDocumentManager.getInstance().getDocument(file);
+      return document == null ? null : getDigest(document.getImmutableCharSequence());
+    });
+  }
+
+  @NotNull
+  private static String getDigest(@NotNull final CharSequence content) {
+    try {
+      final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+      return StringUtil.toHexString(digest.digest(content.toString().getBytes(CharsetToolkit.UTF8_CHARSET)));
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   private static int getRightMargin(@NotNull Project project) {
     return CodeStyleSettingsManager.getSettings(project).getCommonSettings(DartLanguage.INSTANCE).RIGHT_MARGIN;
   }
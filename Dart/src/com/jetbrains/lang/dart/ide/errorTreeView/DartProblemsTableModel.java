@@ -7,6 +7,7 @@ import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.util.ui.ColumnInfo;
 import com.intellij.util.ui.ListTableModel;
 import com.jetbrains.lang.dart.ide.annotator.DartAnnotator;
+import gnu.trove.TObjectIntHashMap;
 import icons.DartIcons;
 import org.dartlang.analysis.server.protocol.AnalysisError;
 import org.dartlang.analysis.server.protocol.AnalysisErrorSeverity;
@@ -56,6 +57,9 @@ class DartProblemsTableModel extends ListTableModel<DartProblem> {
   // Kind of hack to keep a reference to the live collection used in a super class, but it allows to improve performance greatly.
   // Having it in hand we can do bulk rows removal with a single fireTableRowsDeleted() call afterwards
   private final List<DartProblem> myItems;
+  // All problems of a file are stored continuously in myItems, this map keeps the size of each such segment, so that rows of
+  // particular files can be found without looking through the whole table
+  private final TObjectIntHashMap<String> myFilePathToProblemCount = new TObjectIntHashMap<>();
 
   private boolean myGroupBySeverity = true;
   private RowSorter.SortKey mySortKey = new RowSorter.SortKey(1, SortOrder.ASCENDING);
@@ -149,14 +153,19 @@ class DartProblemsTableModel extends ListTableModel<DartProblem> {
   public void removeRows(final int firstRow, final int lastRow) {
     assert lastRow >= firstRow;
 
-    for (int i = lastRow; i >= firstRow; i--) {
-      final DartProblem removed = myItems.remove(i);
+    final List<DartProblem> rowsToRemove = myItems.subList(firstRow, lastRow + 1);
+    for (DartProblem removed : rowsToRemove) {
+      final String filePath = removed.getSystemIndependentPath();
+      if (!myFilePathToProblemCount.adjustValue(filePath, -1) || myFilePathToProblemCount.get(filePath) <= 0) {
+        myFilePathToProblemCount.remove(filePath);
+      }
 
       if (AnalysisErrorSeverity.ERROR.equals(removed.getSeverity())) myErrorCount--;
       if (AnalysisErrorSeverity.WARNING.equals(removed.getSeverity())) myWarningCount--;
       if (AnalysisErrorSeverity.INFO.equals(removed.getSeverity())) myHintCount--;
       updateProblemsCountAfterFilter(removed, false);
     }
+    rowsToRemove.clear();
 
     fireTableRowsDeleted(firstRow, lastRow);
   }
@@ -167,6 +176,7 @@ class DartProblemsTableModel extends ListTableModel<DartProblem> {
       myItems.clear();
       fireTableRowsDeleted(0, rowCount - 1);
     }
+    myFilePathToProblemCount.clear();
 
     myErrorCount = 0;
     myWarningCount = 0;
@@ -190,65 +200,43 @@ class DartProblemsTableModel extends ListTableModel<DartProblem> {
   private boolean removeRowsForFilesInSet(@NotNull final Set<String> filePaths, @Nullable final DartProblem selectedProblem) {
     // Looks for regions in table items that should be removed and removes them.
     // For performance reasons we try to call removeRows() as rare as possible, that means with regions as big as possible.
-    // Logic is based on the fact that all errors for each particular file are stored continuously in the myItems model
-
-    boolean selectedProblemRemoved = false;
-
-    int matchedFilesCount = 0;
-
-    for (int i = getRowCount() - 1; i >= 0; i--) {
-      final DartProblem problem = getItem(i);
-      if (filePaths.contains(problem.getSystemIndependentPath())) {
-        matchedFilesCount++;
-        final int lastRowToDelete = i;
-
-        if (problem == selectedProblem) {
-          selectedProblemRemoved = true;
-        }
-
-        DartProblem lastProblemForCurrentFile = problem;
-
-        int j = i - 1;
-        while (j >= 0) {
-          final DartProblem previousProblem = getItem(j);
-
-          if (previousProblem.getSystemIndependentPath().equals(lastProblemForCurrentFile.getSystemIndependentPath())) {
-            // previousProblem should be removed from the table as well
-            j--;
-
-            if (previousProblem == selectedProblem) {
-              selectedProblemRemoved = true;
-            }
+    // Logic is based on the fact that all errors for each particular file are stored continuously in the myItems model,
+    // so the table is walked segment by segment rather than row by row.
 
-            continue;
-          }
+    int rowsToRemoveCount = 0;
+    for (String filePath : filePaths) {
+      rowsToRemoveCount += myFilePathToProblemCount.get(filePath);
+    }
 
-          if (filePaths.contains(previousProblem.getSystemIndependentPath())) {
-            matchedFilesCount++;
-            // continue iterating the table because we met a range of problems for another file that also should be removed
-            lastProblemForCurrentFile = previousProblem;
-            j--;
+    if (rowsToRemoveCount == 0) {
+      return false;
+    }
 
-            if (previousProblem == selectedProblem) {
-              selectedProblemRemoved = true;
-            }
+    final boolean selectedProblemRemoved = selectedProblem != null && filePaths.contains(selectedProblem.getSystemIndependentPath());
 
-            continue;
-          }
+    int lastRowToDelete = -1;
+    int i = getRowCount() - 1;
+    while (i >= 0 && rowsToRemoveCount > 0) {
+      final String filePath = myItems.get(i).getSystemIndependentPath();
+      final int segmentSize = myFilePathToProblemCount.get(filePath);
+      assert segmentSize > 0 : filePath;
 
-          break;
+      if (filePaths.contains(filePath)) {
+        if (lastRowToDelete < 0) {
+          lastRowToDelete = i;
         }
+        rowsToRemoveCount -= segmentSize;
+      }
+      else if (lastRowToDelete >= 0) {
+        removeRows(i + 1, lastRowToDelete);
+        lastRowToDelete = -1;
+      }
 
-        final int firstRowToDelete = j + 1;
-        removeRows(firstRowToDelete, lastRowToDelete);
-
-        if (matchedFilesCount == filePaths.size()) {
-          break;
-        }
+      i -= Math.max(segmentSize, 1);
+    }
 
-        //noinspection AssignmentToForLoopParameter
-        i = j + 1; // rewind according to the amount of removed rows
-      }
+    if (lastRowToDelete >= 0) {
+      removeRows(i + 1, lastRowToDelete);
     }
 
     return selectedProblemRemoved;
@@ -271,6 +259,9 @@ class DartProblemsTableModel extends ListTableModel<DartProblem> {
 
         final DartProblem problem = new DartProblem(myProject, analysisError);
         problemsToAdd.add(problem);
+        if (!myFilePathToProblemCount.adjustValue(problem.getSystemIndependentPath(), 1)) {
+          myFilePathToProblemCount.put(problem.getSystemIndependentPath(), 1);
+        }
 
         if (oldSelectedProblem != null &&
             lookSimilar(problem, oldSelectedProblem) &&
@@ -0,0 +1,742 @@
+package com.jetbrains.lang.dart.ide.index;
+
+import com.intellij.psi.tree.IElementType;
+import com.intellij.psi.tree.TokenSet;
+import com.jetbrains.lang.dart.DartComponentType;
+import com.jetbrains.lang.dart.DartTokenTypesSets;
+import com.jetbrains.lang.dart.lexer.DartLexer;
+import com.jetbrains.lang.dart.util.DartPsiImplUtil;
+import gnu.trove.THashSet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static com.jetbrains.lang.dart.DartTokenTypes.*;
+import static com.jetbrains.lang.dart.ide.index.DartImportOrExportInfo.Kind;
+
+/**
+ * Collects {@link DartFileIndexData} of a Dart file from the lexer tokens without building PSI, which is what makes indexing of
+ * big pub caches slow. Only top-level declarations, directives and class member names are looked at, bodies and initializers
+ * are skipped by bracket matching. The result must be the same as the one collected by {@link DartIndexUtil} from PSI, so as soon
+ * as something unexpected (e.g. an error in the code) or something that needs resolve (<code>part of 'uri'</code>) is met,
+ * <code>null</code> is returned and the caller falls back to PSI. Used only if the <code>dart.index.without.psi</code> registry key is on.
+ */
+class DartLexerIndexer {
+  private static final TokenSet SKIPPED_TOKENS = TokenSet.orSet(DartTokenTypesSets.WHITE_SPACES, DartTokenTypesSets.COMMENTS);
+
+  // built-in identifiers that have a special meaning at the start of a declaration, others are treated as usual names
+  private static final TokenSet DECLARATION_KEYWORDS =
+    TokenSet.create(ABSTRACT, EXPORT, EXTERNAL, FACTORY, GET, IMPORT, LIBRARY, OPERATOR, PART, SET, STATIC, TYPEDEF);
+  private static final TokenSet NAMES =
+    TokenSet.orSet(TokenSet.create(IDENTIFIER), TokenSet.andNot(DartTokenTypesSets.BUILT_IN_IDENTIFIERS, DECLARATION_KEYWORDS));
+
+  private static final TokenSet CLASS_HEADER_TOKENS = TokenSet.create(EXTENDS, WITH, IMPLEMENTS, DOT, LT, GT, COMMA);
+  private static final TokenSet USER_DEFINABLE_OPERATORS = TokenSet.create(
+    EQ_EQ, LT, GT, LT_EQ, GT_EQ, LT_LT, MINUS, PLUS, DIV, INT_DIV, MUL, REM, OR, XOR, AND, BIN_NOT, LBRACKET, RBRACKET, EQ);
+
+  private static final TokenSet OPENING_BRACKETS = TokenSet.create(LPAREN, LBRACKET, LBRACE, LONG_TEMPLATE_ENTRY_START);
+  private static final TokenSet CLOSING_BRACKETS = TokenSet.create(RPAREN, RBRACKET, RBRACE, LONG_TEMPLATE_ENTRY_END);
+
+  private static class Declaration {
+    private final String myName;
+    private final DartComponentType myType;
+    @Nullable private final List<String> myMemberNames; // not null for classes
+
+    private Declaration(@NotNull final String name, @NotNull final DartComponentType type, @Nullable final List<String> memberNames) {
+      myName = name;
+      myType = type;
+      myMemberNames = memberNames;
+    }
+  }
+
+  private final CharSequence myText;
+  private IElementType[] myTokenTypes;
+  private int[] myTokenStarts;
+  private int[] myTokenEnds;
+  private int myTokenCount;
+  private int myPos;
+
+  private String myLibraryName;
+  private String myPartOfLibraryName;
+  private final List<Declaration> myDeclarations = new ArrayList<>();
+  private final List<DartImportOrExportInfo> myImportAndExportInfos = new ArrayList<>();
+  private final List<String> myPartUris = new ArrayList<>();
+
+  private DartLexerIndexer(@NotNull final CharSequence text) {
+    myText = text;
+    final int capacity = Math.max(16, text.length() / 4);
+    myTokenTypes = new IElementType[capacity];
+    myTokenStarts = new int[capacity];
+    myTokenEnds = new int[capacity];
+  }
+
+  /**
+   * @return <code>null</code> if the file can't be indexed without PSI
+   */
+  @Nullable
+  static DartFileIndexData indexFile(@NotNull final CharSequence text, @NotNull final String fileName) {
+    final DartLexerIndexer indexer = new DartLexerIndexer(text);
+    if (!indexer.tokenize() || !indexer.parseUnit()) return null;
+    return indexer.createIndexData(fileName);
+  }
+
+  @NotNull
+  private DartFileIndexData createIndexData(@NotNull final String fileName) {
+    // same order as in DartIndexUtil.indexFileRoots()
+    final DartFileIndexData result = new DartFileIndexData();
+    result.setLibraryName(myLibraryName != null ? myLibraryName : myPartOfLibraryName != null ? myPartOfLibraryName : fileName);
+    result.setIsPart(myPartOfLibraryName != null);
+
+    for (Declaration declaration : myDeclarations) {
+      result.addSymbol(declaration.myName);
+      result.addComponentInfo(declaration.myName, new DartComponentInfo(declaration.myType, result.getLibraryName()));
+      if (declaration.myMemberNames != null) {
+        result.addClassName(declaration.myName);
+        for (String memberName : declaration.myMemberNames) {
+          result.addSymbol(memberName);
+        }
+      }
+    }
+
+    for (DartImportOrExportInfo info : myImportAndExportInfos) {
+      result.addImportInfo(info);
+      result.addComponentInfo(info.getImportPrefix(), new DartComponentInfo(DartComponentType.LABEL, null));
+    }
+
+    for (String partUri : myPartUris) {
+      result.addPartUri(partUri);
+    }
+
+    return result;
+  }
+
+  private boolean tokenize() {
+    final DartLexer lexer = new DartLexer();
+    lexer.start(myText);
+
+    int unclosedStrings = 0;
+    for (IElementType type = lexer.getTokenType(); type != null; lexer.advance(), type = lexer.getTokenType()) {
+      if (SKIPPED_TOKENS.contains(type)) continue;
+
+      if (type == DartTokenTypesSets.BAD_CHARACTER) return false;
+      // script tag
+      if (type == HASH && myTokenCount == 0) return false;
+
+      if (type == OPEN_QUOTE) unclosedStrings++;
+      if (type == CLOSING_QUOTE) unclosedStrings--;
+      if ((type == RAW_SINGLE_QUOTED_STRING || type == RAW_TRIPLE_QUOTED_STRING) &&
+          !isClosedRawString(lexer.getTokenStart(), lexer.getTokenEnd(), type == RAW_TRIPLE_QUOTED_STRING ? 3 : 1)) {
+        return false;
+      }
+
+      if (myTokenCount == myTokenTypes.length) {
+        final int capacity = myTokenCount * 2;
+        myTokenTypes = Arrays.copyOf(myTokenTypes, capacity);
+        myTokenStarts = Arrays.copyOf(myTokenStarts, capacity);
+        myTokenEnds = Arrays.copyOf(myTokenEnds, capacity);
+      }
+      myTokenTypes[myTokenCount] = type;
+      myTokenStarts[myTokenCount] = lexer.getTokenStart();
+      myTokenEnds[myTokenCount] = lexer.getTokenEnd();
+      myTokenCount++;
+    }
+
+    return unclosedStrings == 0;
+  }
+
+  // r'...', r"...", r'''...''' or r"""..."""
+  private boolean isClosedRawString(final int start, final int end, final int quoteCount) {
+    if (end - start < 1 + quoteCount * 2) return false;
+
+    final char quote = myText.charAt(start + 1);
+    for (int i = 1; i <= quoteCount; i++) {
+      if (myText.charAt(end - i) != quote) return false;
+    }
+    return true;
+  }
+
+  private boolean parseUnit() {
+    while (myPos < myTokenCount) {
+      if (!skipMetadata()) return false;
+
+      final IElementType type = tokenType(0);
+      final boolean ok;
+      if (type == LIBRARY) {
+        ok = parseLibraryStatement();
+      }
+      else if (type == IMPORT || type == EXPORT) {
+        ok = parseImportOrExportStatement();
+      }
+      else if (type == PART) {
+        ok = parsePartOrPartOfStatement();
+      }
+      else if (type == ABSTRACT || type == CLASS) {
+        ok = parseClass();
+      }
+      else if (type == ENUM) {
+        ok = parseEnum();
+      }
+      else if (type == TYPEDEF) {
+        ok = parseTypedef();
+      }
+      else {
+        ok = parseDeclaration(null);
+      }
+
+      if (!ok) return false;
+    }
+    return true;
+  }
+
+  private boolean parseLibraryStatement() {
+    myPos++; // library
+    final String name = readDottedName(true);
+    if (name == null || !consume(SEMICOLON)) return false;
+
+    if (myLibraryName == null) {
+      myLibraryName = name;
+    }
+    return true;
+  }
+
+  private boolean parsePartOrPartOfStatement() {
+    myPos++; // part
+
+    if (consume(OF)) {
+      // 'part of' with uri requires resolve
+      final int start = myPos;
+      if (readDottedName(false) == null || !consume(SEMICOLON)) return false;
+
+      if (myPartOfLibraryName == null) {
+        // DartPartOfStatement.getLibraryName() is the text of the library id
+        myPartOfLibraryName = myText.subSequence(myTokenStarts[start], myTokenEnds[myPos - 2]).toString();
+      }
+      return true;
+    }
+
+    final String uri = readUri();
+    if (uri == null || !consume(SEMICOLON)) return false;
+
+    myPartUris.add(uri);
+    return true;
+  }
+
+  private boolean parseImportOrExportStatement() {
+    final Kind kind = tokenType(0) == IMPORT ? Kind.Import : Kind.Export;
+    myPos++;
+
+    final String uri = readUri();
+    // configurable imports are not handled
+    if (uri == null || tokenType(0) == IF) return false;
+
+    String importPrefix = null;
+    if (kind == Kind.Import) {
+      consume(DEFERRED);
+      if (consume(AS)) {
+        if (!isName(0)) return false;
+        importPrefix = tokenText(myPos++);
+      }
+    }
+
+    final Set<String> showComponentNames = new THashSet<>();
+    final Set<String> hideComponentNames = new THashSet<>();
+    while (tokenType(0) == SHOW || tokenType(0) == HIDE) {
+      final Set<String> names = tokenType(0) == SHOW ? showComponentNames : hideComponentNames;
+      myPos++;
+      do {
+        if (!isName(0)) return false;
+        names.add(tokenText(myPos++));
+      }
+      while (consume(COMMA));
+    }
+
+    if (!consume(SEMICOLON)) return false;
+
+    myImportAndExportInfos.add(new DartImportOrExportInfo(kind, uri, importPrefix, showComponentNames, hideComponentNames));
+    return true;
+  }
+
+  private boolean parseClass() {
+    consume(ABSTRACT);
+    if (!consume(CLASS) || !isName(0)) return false;
+
+    final String name = tokenText(myPos++);
+    if (tokenType(0) == LT && !skipTypeParameters()) return false;
+
+    if (consume(EQ)) {
+      // mixin application, class without body
+      while (!consume(SEMICOLON)) {
+        if (!isName(0) && !CLASS_HEADER_TOKENS.contains(tokenType(0))) return false;
+        myPos++;
+      }
+      myDeclarations.add(new Declaration(name, DartComponentType.CLASS, Collections.emptyList()));
+      return true;
+    }
+
+    while (!consume(LBRACE)) {
+      if (consume(NATIVE)) {
+        if (isStringStart(0) && !skipStringLiteral()) return false;
+        continue;
+      }
+      if (!isName(0) && !CLASS_HEADER_TOKENS.contains(tokenType(0))) return false;
+      myPos++;
+    }
+
+    final List<String> memberNames = new ArrayList<>();
+    while (!consume(RBRACE)) {
+      if (!skipMetadata() || !parseDeclaration(memberNames)) return false;
+    }
+
+    myDeclarations.add(new Declaration(name, DartComponentType.CLASS, memberNames));
+    return true;
+  }
+
+  private boolean parseEnum() {
+    myPos++; // enum
+    if (!isName(0)) return false;
+
+    final String name = tokenText(myPos++);
+    if (!consume(LBRACE)) return false;
+
+    final List<String> constantNames = new ArrayList<>();
+    do {
+      if (tokenType(0) == RBRACE && !constantNames.isEmpty()) break; // trailing comma
+      if (!isName(0)) return false;
+      constantNames.add(tokenText(myPos++));
+    }
+    while (consume(COMMA));
+
+    if (!consume(RBRACE)) return false;
+
+    myDeclarations.add(new Declaration(name, DartComponentType.CLASS, constantNames));
+    return true;
+  }
+
+  private boolean parseTypedef() {
+    myPos++; // typedef
+    final int start = myPos;
+
+    // typedef F<T> = functionType;
+    if (isName(0)) {
+      myPos++;
+      if (tokenType(0) == LT && !skipTypeParameters()) return false;
+      if (consume(EQ)) {
+        if (!skipExpression() || !consume(SEMICOLON)) return false;
+        myDeclarations.add(new Declaration(tokenText(start), DartComponentType.TYPEDEF, null));
+        return true;
+      }
+      myPos = start;
+    }
+
+    // typedef ReturnType F<T>(parameters);
+    final int nameIndex = parseTypeAndName();
+    if (nameIndex < 0) return false;
+    if (tokenType(0) == LT && !skipTypeParameters()) return false;
+    if (tokenType(0) != LPAREN || !skipBrackets() || !consume(SEMICOLON)) return false;
+
+    myDeclarations.add(new Declaration(tokenText(nameIndex), DartComponentType.TYPEDEF, null));
+    return true;
+  }
+
+  /**
+   * Parses a top-level function, getter, setter or variables declaration if <code>classMemberNames</code> is <code>null</code>,
+   * or a class member otherwise. Metadata must be already skipped.
+   */
+  private boolean parseDeclaration(@Nullable final List<String> classMemberNames) {
+    final boolean classMember = classMemberNames != null;
+
+    boolean varKeyword = false;
+    boolean finalOrConst = false;
+    while (true) {
+      final IElementType type = tokenType(0);
+      if (type == EXTERNAL || type == STATIC) {
+        myPos++;
+      }
+      else if (type == VAR) {
+        varKeyword = true;
+        myPos++;
+      }
+      else if (type == FINAL || type == CONST) {
+        finalOrConst = true;
+        myPos++;
+      }
+      else {
+        break;
+      }
+    }
+
+    if (classMember && tokenType(0) == FACTORY) {
+      return parseFactoryConstructor(classMemberNames);
+    }
+
+    if (classMember && isName(0) && tokenType(1) == DOT && isName(2) && tokenType(3) == LPAREN) {
+      // named constructor, its component name is the second one
+      classMemberNames.add(tokenText(myPos + 2));
+      myPos += 3;
+      return skipBrackets() && skipFunctionTail(true);
+    }
+
+    final int start = myPos;
+
+    if ((tokenType(0) == GET || tokenType(0) == SET) && isName(1)) {
+      return parseGetterOrSetter(classMemberNames);
+    }
+
+    if (skipType()) {
+      if ((tokenType(0) == GET || tokenType(0) == SET) && isName(1)) {
+        return parseGetterOrSetter(classMemberNames);
+      }
+      if (classMember && tokenType(0) == OPERATOR) {
+        return parseOperator(classMemberNames);
+      }
+    }
+    else if (classMember && tokenType(0) == OPERATOR) {
+      return parseOperator(classMemberNames);
+    }
+    myPos = start;
+
+    final int nameIndex = parseTypeAndName();
+    if (nameIndex < 0) return false;
+    final boolean hasType = nameIndex > start;
+
+    if (tokenType(0) == LT || tokenType(0) == LPAREN) {
+      // function or method (constructor if the name is the same as class name)
+      if (tokenType(0) == LT && !skipTypeParameters()) return false;
+      if (tokenType(0) != LPAREN || !skipBrackets() || !skipFunctionTail(classMember)) return false;
+
+      addDeclaration(classMemberNames, tokenText(nameIndex), DartComponentType.FUNCTION);
+      return true;
+    }
+
+    if (hasType ? varKeyword : !varKeyword && !finalOrConst) return false;
+
+    final List<String> names = new ArrayList<>();
+    names.add(tokenText(nameIndex));
+    while (true) {
+      if (consume(EQ) && !skipExpression()) return false;
+      if (consume(SEMICOLON)) break;
+      if (!consume(COMMA) || !isName(0)) return false;
+      names.add(tokenText(myPos++));
+    }
+
+    for (String name : names) {
+      addDeclaration(classMemberNames, name, DartComponentType.VARIABLE);
+    }
+    return true;
+  }
+
+  private void addDeclaration(@Nullable final List<String> classMemberNames,
+                              @NotNull final String name,
+                              @NotNull final DartComponentType type) {
+    if (classMemberNames != null) {
+      classMemberNames.add(name);
+    }
+    else {
+      myDeclarations.add(new Declaration(name, type, null));
+    }
+  }
+
+  // at 'get' or 'set' keyword
+  private boolean parseGetterOrSetter(@Nullable final List<String> classMemberNames) {
+    final boolean setter = tokenType(0) == SET;
+    final String name = tokenText(myPos + 1);
+    myPos += 2;
+
+    if (tokenType(0) == LPAREN) {
+      if (!skipBrackets()) return false;
+    }
+    else if (setter) {
+      return false;
+    }
+
+    if (!skipFunctionTail(false)) return false;
+
+    addDeclaration(classMemberNames, name, DartComponentType.FUNCTION);
+    return true;
+  }
+
+  // at 'operator' keyword
+  private boolean parseOperator(@NotNull final List<String> classMemberNames) {
+    myPos++; // operator
+
+    final String name;
+    if (tokenType(0) == LPAREN) {
+      // method with name 'operator'
+      name = tokenText(myPos - 1);
+    }
+    else {
+      final int start = myPos;
+      while (tokenType(0) != LPAREN) {
+        if (!USER_DEFINABLE_OPERATORS.contains(tokenType(0)) || myPos - start == 3) return false;
+        myPos++;
+      }
+      // operator tokens are collapsed into a single identifier in PSI
+      name = myText.subSequence(myTokenStarts[start], myTokenEnds[myPos - 1]).toString();
+    }
+
+    if (!skipBrackets() || !skipFunctionTail(true)) return false;
+
+    classMemberNames.add(name);
+    return true;
+  }
+
+  // at 'factory' keyword
+  private boolean parseFactoryConstructor(@NotNull final List<String> classMemberNames) {
+    myPos++; // factory
+    if (!isName(0)) return false;
+    myPos++;
+
+    if (consume(DOT)) {
+      if (!isName(0)) return false;
+      // unnamed factory constructor has no component name
+      classMemberNames.add(tokenText(myPos++));
+    }
+
+    if (tokenType(0) != LPAREN || !skipBrackets()) return false;
+
+    if (consume(EQ)) {
+      // redirecting factory constructor
+      while (!consume(SEMICOLON)) {
+        if (!isName(0) && tokenType(0) != DOT && tokenType(0) != LT && tokenType(0) != GT && tokenType(0) != COMMA) return false;
+        myPos++;
+      }
+      return true;
+    }
+
+    return skipFunctionBody();
+  }
+
+  /**
+   * Skips what follows the parameter list of a function or method: initializers or redirection of constructors if
+   * <code>classMember</code> is <code>true</code>, and then ';' or function body.
+   */
+  private boolean skipFunctionTail(final boolean classMember) {
+    if (classMember && consume(COLON)) {
+      while (tokenType(0) != LBRACE && tokenType(0) != EXPRESSION_BODY_DEF && tokenType(0) != SEMICOLON) {
+        if (!skipToken()) return false;
+      }
+    }
+
+    return skipFunctionBody();
+  }
+
+  private boolean skipFunctionBody() {
+    if (consume(SEMICOLON)) return true;
+
+    if (consume(NATIVE)) {
+      if (isStringStart(0) && !skipStringLiteral()) return false;
+      if (consume(SEMICOLON)) return true;
+    }
+
+    if (consume(ASYNC) || consume(SYNC)) {
+      consume(MUL);
+    }
+
+    if (tokenType(0) == LBRACE) {
+      return skipBrackets();
+    }
+
+    return consume(EXPRESSION_BODY_DEF) && skipExpression() && consume(SEMICOLON);
+  }
+
+  /**
+   * Skips tokens up to ',' or ';' or unmatched closing bracket. Type arguments are skipped as a whole to handle generic
+   * constructor calls and collection literals like <code>new Map&lt;String, int>()</code>.
+   */
+  private boolean skipExpression() {
+    while (true) {
+      final IElementType type = tokenType(0);
+      if (type == null) return false;
+      if (type == COMMA || type == SEMICOLON || CLOSING_BRACKETS.contains(type)) return true;
+
+      if (type == LT) {
+        final int start = myPos;
+        if (skipTypeArguments() && OPENING_BRACKETS.contains(tokenType(0))) continue;
+        myPos = start;
+      }
+
+      if (!skipToken()) return false;
+    }
+  }
+
+  // skips single token or the whole bracketed group if at opening bracket
+  private boolean skipToken() {
+    final IElementType type = tokenType(0);
+    if (type == null || CLOSING_BRACKETS.contains(type)) return false;
+    if (OPENING_BRACKETS.contains(type)) return skipBrackets();
+    myPos++;
+    return true;
+  }
+
+  // at opening bracket, skips up to the matching closing one
+  private boolean skipBrackets() {
+    final List<IElementType> expectedClosingBrackets = new ArrayList<>();
+    do {
+      final IElementType type = tokenType(0);
+      if (type == null) return false;
+
+      if (OPENING_BRACKETS.contains(type)) {
+        expectedClosingBrackets.add(type == LPAREN ? RPAREN
+                                    : type == LBRACKET ? RBRACKET
+                                      : type == LBRACE ? RBRACE
+                                        : LONG_TEMPLATE_ENTRY_END);
+      }
+      else if (CLOSING_BRACKETS.contains(type)) {
+        if (expectedClosingBrackets.remove(expectedClosingBrackets.size() - 1) != type) return false;
+      }
+      myPos++;
+    }
+    while (!expectedClosingBrackets.isEmpty());
+
+    return true;
+  }
+
+  // at '<', skips up to the matching '>'
+  private boolean skipTypeParameters() {
+    int depth = 0;
+    do {
+      final IElementType type = tokenType(0);
+      if (type == null || type == SEMICOLON || OPENING_BRACKETS.contains(type) || CLOSING_BRACKETS.contains(type)) return false;
+
+      if (type == LT) depth++;
+      if (type == GT) depth--;
+      myPos++;
+    }
+    while (depth > 0);
+
+    return true;
+  }
+
+  // '<' type (',' type)* '>'
+  private boolean skipTypeArguments() {
+    if (!consume(LT)) return false;
+    do {
+      if (!skipType()) return false;
+    }
+    while (consume(COMMA));
+    return consume(GT);
+  }
+
+  // 'void' | name ('.' name)* typeArguments?
+  private boolean skipType() {
+    if (consume(VOID)) return true;
+    if (!isName(0)) return false;
+
+    final int start = myPos;
+    myPos++;
+    while (tokenType(0) == DOT && isName(1)) {
+      myPos += 2;
+    }
+
+    if (tokenType(0) == LT && !skipTypeArguments()) {
+      myPos = start;
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Parses optional type followed by a name.
+   *
+   * @return index of the name token or -1
+   */
+  private int parseTypeAndName() {
+    final int start = myPos;
+    if (skipType() && isName(0)) {
+      return myPos++;
+    }
+
+    myPos = start;
+    return isName(0) ? myPos++ : -1;
+  }
+
+  private boolean skipMetadata() {
+    while (consume(AT)) {
+      if (readDottedName(false) == null) return false;
+      if (tokenType(0) == LPAREN && !skipBrackets()) return false;
+    }
+    return true;
+  }
+
+  /**
+   * @param anyBuiltInIdentifier whether built-in identifiers that start declarations are allowed as parts of the name
+   * @return the name with whitespaces and comments removed, or <code>null</code> if not at name
+   */
+  @Nullable
+  private String readDottedName(final boolean anyBuiltInIdentifier) {
+    final StringBuilder name = new StringBuilder();
+    do {
+      if (!isName(0) && !(anyBuiltInIdentifier && DECLARATION_KEYWORDS.contains(tokenType(0)))) return null;
+      if (name.length() > 0) {
+        name.append('.');
+      }
+      name.append(myText, myTokenStarts[myPos], myTokenEnds[myPos]);
+      myPos++;
+    }
+    while (consume(DOT));
+
+    return name.toString();
+  }
+
+  /**
+   * @return unquoted uri, or <code>null</code> if not at a simple string literal without interpolation
+   */
+  @Nullable
+  private String readUri() {
+    final int start = myPos;
+    if (!consume(RAW_SINGLE_QUOTED_STRING) && !consume(RAW_TRIPLE_QUOTED_STRING)) {
+      if (!consume(OPEN_QUOTE)) return null;
+      consume(REGULAR_STRING_PART);
+      if (!consume(CLOSING_QUOTE)) return null;
+    }
+
+    // adjacent string literals
+    if (isStringStart(0)) return null;
+
+    final String quotedUri = myText.subSequence(myTokenStarts[start], myTokenEnds[myPos - 1]).toString();
+    return DartPsiImplUtil.getUnquotedDartStringAndItsRange(quotedUri).first;
+  }
+
+  private boolean skipStringLiteral() {
+    while (isStringStart(0)) {
+      if (consume(RAW_SINGLE_QUOTED_STRING) || consume(RAW_TRIPLE_QUOTED_STRING)) continue;
+
+      myPos++; // opening quote
+      while (!consume(CLOSING_QUOTE)) {
+        if (!skipToken()) return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean isStringStart(final int offset) {
+    final IElementType type = tokenType(offset);
+    return type == OPEN_QUOTE || type == RAW_SINGLE_QUOTED_STRING || type == RAW_TRIPLE_QUOTED_STRING;
+  }
+
+  private boolean isName(final int offset) {
+    return NAMES.contains(tokenType(offset));
+  }
+
+  private boolean consume(@NotNull final IElementType type) {
+    if (tokenType(0) != type) return false;
+    myPos++;
+    return true;
+  }
+
+  @Nullable
+  private IElementType tokenType(final int offset) {
+    final int index = myPos + offset;
+    return index < myTokenCount ? myTokenTypes[index] : null;
+  }
+
+  @NotNull
+  private String tokenText(final int index) {
+    return myText.subSequence(myTokenStarts[index], myTokenEnds[index]).toString();
+  }
+}
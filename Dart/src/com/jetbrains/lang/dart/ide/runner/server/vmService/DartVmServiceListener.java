@@ -57,9 +57,11 @@ public class DartVmServiceListener implements VmServiceListener {
       case Inspect:
         break;
       case IsolateExit:
+        myDebugProcess.getVmServiceWrapper().isolateExit(event.getIsolate().getId());
         myDebugProcess.isolateExit(event.getIsolate());
         break;
       case IsolateReload:
+        myDebugProcess.getVmServiceWrapper().isolateReloaded(event.getIsolate().getId());
         break;
       case IsolateRunnable:
         break;
@@ -93,6 +95,7 @@ public class DartVmServiceListener implements VmServiceListener {
         myDebugProcess.getVmServiceWrapper().handleIsolate(event.getIsolate(), true);
         break;
       case Resume:
+        myDebugProcess.getVmServiceWrapper().isolateResumed(event.getIsolate().getId());
         myDebugProcess.isolateResumed(event.getIsolate());
         break;
       case ServiceExtensionAdded:
@@ -0,0 +1,157 @@
+package com.jetbrains.lang.dart.ide.runner.server.vmService;
+
+import com.intellij.util.SmartList;
+import gnu.trove.THashMap;
+import gnu.trove.TObjectIntHashMap;
+import org.dartlang.vm.service.consumer.GetObjectConsumer;
+import org.dartlang.vm.service.element.ClassObj;
+import org.dartlang.vm.service.element.Obj;
+import org.dartlang.vm.service.element.RPCError;
+import org.dartlang.vm.service.element.Sentinel;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-isolate cache of objects received by {@link VmServiceWrapper#getObject} and {@link VmServiceWrapper#getCollectionObject}.
+ * Classes don't change while the isolate is alive (unless it is reloaded), so they are kept until the isolate exits.
+ * All other objects are valid only while the isolate stays paused and are dropped when it resumes or when the user evaluates an expression.
+ * Concurrent requests for the same object are merged into one VM request.
+ */
+class VmObjectCache {
+
+  private final Map<String, Map<String, Obj>> myIsolateIdToClasses = new THashMap<>();
+  private final Map<String, Map<String, Obj>> myIsolateIdToPausedStateObjects = new THashMap<>();
+  private final Map<String, Map<String, List<GetObjectConsumer>>> myIsolateIdToPendingRequests = new THashMap<>();
+  // incremented each time when paused state objects become invalid, helps to ignore responses to the requests sent before resume
+  private final TObjectIntHashMap<String> myIsolateIdToPausedStateStamp = new TObjectIntHashMap<>();
+
+  @NotNull
+  static String getCollectionObjectKey(@NotNull final String objectId, final int offset, final int count) {
+    return objectId + "[" + offset + ":" + count + "]";
+  }
+
+  /**
+   * @param key object id for plain objects or {@link #getCollectionObjectKey} result for collection pages
+   * @return cached object or <code>null</code> if there's no cached object and the caller needs to request it from the VM
+   * using the consumer returned by {@link #startRequest}
+   */
+  @Nullable
+  synchronized Obj getCachedObject(@NotNull final String isolateId, @NotNull final String key) {
+    final Map<String, Obj> classes = myIsolateIdToClasses.get(isolateId);
+    final Obj classObj = classes == null ? null : classes.get(key);
+    if (classObj != null) return classObj;
+
+    final Map<String, Obj> objects = myIsolateIdToPausedStateObjects.get(isolateId);
+    return objects == null ? null : objects.get(key);
+  }
+
+  /**
+   * @return consumer to be passed to the VM service if there's no request for the same object in progress, <code>null</code> if
+   * <code>consumer</code> has been attached to the already running request
+   */
+  @Nullable
+  synchronized GetObjectConsumer startRequest(@NotNull final String isolateId,
+                                              @NotNull final String key,
+                                              @NotNull final GetObjectConsumer consumer) {
+    Map<String, List<GetObjectConsumer>> pendingRequests = myIsolateIdToPendingRequests.get(isolateId);
+    if (pendingRequests == null) {
+      pendingRequests = new THashMap<>();
+      myIsolateIdToPendingRequests.put(isolateId, pendingRequests);
+    }
+
+    final List<GetObjectConsumer> waitingConsumers = pendingRequests.get(key);
+    if (waitingConsumers != null) {
+      waitingConsumers.add(consumer);
+      return null;
+    }
+
+    final List<GetObjectConsumer> consumers = new SmartList<>(consumer);
+    pendingRequests.put(key, consumers);
+
+    final int stamp = myIsolateIdToPausedStateStamp.get(isolateId);
+
+    return new GetObjectConsumer() {
+      @Override
+      public void received(final Obj response) {
+        for (GetObjectConsumer consumer : requestFinished(isolateId, key, consumers, stamp, response)) {
+          consumer.received(response);
+        }
+      }
+
+      @Override
+      public void received(final Sentinel response) {
+        for (GetObjectConsumer consumer : requestFinished(isolateId, key, consumers, stamp, null)) {
+          consumer.received(response);
+        }
+      }
+
+      @Override
+      public void onError(final RPCError error) {
+        for (GetObjectConsumer consumer : requestFinished(isolateId, key, consumers, stamp, null)) {
+          consumer.onError(error);
+        }
+      }
+    };
+  }
+
+  @NotNull
+  private synchronized List<GetObjectConsumer> requestFinished(@NotNull final String isolateId,
+                                                               @NotNull final String key,
+                                                               @NotNull final List<GetObjectConsumer> consumers,
+                                                               final int stamp,
+                                                               @Nullable final Obj response) {
+    final Map<String, List<GetObjectConsumer>> pendingRequests = myIsolateIdToPendingRequests.get(isolateId);
+    if (pendingRequests != null && pendingRequests.get(key) == consumers) {
+      pendingRequests.remove(key);
+    }
+
+    if (response instanceof ClassObj) {
+      getOrCreate(myIsolateIdToClasses, isolateId).put(key, response);
+    }
+    else if (response != null && stamp == myIsolateIdToPausedStateStamp.get(isolateId)) {
+      getOrCreate(myIsolateIdToPausedStateObjects, isolateId).put(key, response);
+    }
+
+    return new SmartList<>(consumers);
+  }
+
+  @NotNull
+  private static Map<String, Obj> getOrCreate(@NotNull final Map<String, Map<String, Obj>> isolateIdToObjects,
+                                              @NotNull final String isolateId) {
+    Map<String, Obj> objects = isolateIdToObjects.get(isolateId);
+    if (objects == null) {
+      objects = new THashMap<>();
+      isolateIdToObjects.put(isolateId, objects);
+    }
+    return objects;
+  }
+
+  synchronized void isolateResumed(@NotNull final String isolateId) {
+    pausedStateChanged(isolateId);
+  }
+
+  /**
+   * Drops objects of the paused isolate, called when they may have been changed without resume, e.g. by an expression evaluated by the user.
+   */
+  synchronized void pausedStateChanged(@NotNull final String isolateId) {
+    myIsolateIdToPausedStateObjects.remove(isolateId);
+    // responses to the requests that are in progress must not be shared with the requests made after the next pause
+    myIsolateIdToPendingRequests.remove(isolateId);
+    myIsolateIdToPausedStateStamp.put(isolateId, myIsolateIdToPausedStateStamp.get(isolateId) + 1);
+  }
+
+  synchronized void isolateReloaded(@NotNull final String isolateId) {
+    myIsolateIdToClasses.remove(isolateId);
+    isolateResumed(isolateId);
+  }
+
+  synchronized void isolateExit(@NotNull final String isolateId) {
+    myIsolateIdToClasses.remove(isolateId);
+    myIsolateIdToPausedStateObjects.remove(isolateId);
+    myIsolateIdToPendingRequests.remove(isolateId);
+    myIsolateIdToPausedStateStamp.remove(isolateId);
+  }
+}
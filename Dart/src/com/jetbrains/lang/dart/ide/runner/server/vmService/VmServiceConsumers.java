@@ -1,10 +1,7 @@
 package com.jetbrains.lang.dart.ide.runner.server.vmService;
 
 import org.dartlang.vm.service.consumer.*;
-import org.dartlang.vm.service.element.ErrorRef;
-import org.dartlang.vm.service.element.RPCError;
-import org.dartlang.vm.service.element.Sentinel;
-import org.dartlang.vm.service.element.Success;
+import org.dartlang.vm.service.element.*;
 
 public class VmServiceConsumers {
 
@@ -18,6 +15,20 @@ public class VmServiceConsumers {
     }
   };
 
+  public static final GetObjectConsumer EMPTY_GET_OBJECT_CONSUMER = new GetObjectConsumer() {
+    @Override
+    public void received(Obj response) {
+    }
+
+    @Override
+    public void received(Sentinel response) {
+    }
+
+    @Override
+    public void onError(RPCError error) {
+    }
+  };
+
   private static abstract class ConsumerWrapper implements Consumer {
     @Override
     public void onError(RPCError error) {
@@ -3,6 +3,7 @@ package com.jetbrains.lang.dart.ide.runner.server.vmService;
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.Ref;
 import com.intellij.util.Alarm;
 import com.intellij.util.concurrency.Semaphore;
@@ -10,6 +11,7 @@ import com.intellij.xdebugger.XSourcePosition;
 import com.intellij.xdebugger.breakpoints.XBreakpointProperties;
 import com.intellij.xdebugger.breakpoints.XLineBreakpoint;
 import com.intellij.xdebugger.evaluation.XDebuggerEvaluator;
+import com.intellij.xdebugger.frame.XCompositeNode;
 import com.intellij.xdebugger.frame.XExecutionStack;
 import com.intellij.xdebugger.frame.XStackFrame;
 import com.jetbrains.lang.dart.DartFileType;
@@ -22,6 +24,7 @@ import org.dartlang.vm.service.element.*;
 import org.dartlang.vm.service.logging.Logging;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -40,6 +43,7 @@ public class VmServiceWrapper implements Disposable {
   private final IsolatesInfo myIsolatesInfo;
   private final DartVmServiceBreakpointHandler myBreakpointHandler;
   private final Alarm myRequestsScheduler;
+  private final VmObjectCache myObjectCache = new VmObjectCache();
 
   private long myVmServiceReceiverThreadId;
 
@@ -58,6 +62,16 @@ public class VmServiceWrapper implements Disposable {
     myRequestsScheduler = new Alarm(Alarm.ThreadToUse.POOLED_THREAD, this);
   }
 
+  @TestOnly
+  VmServiceWrapper(@NotNull final VmService vmService) {
+    myDebugProcess = null;
+    myVmService = vmService;
+    myVmServiceListener = null;
+    myIsolatesInfo = null;
+    myBreakpointHandler = null;
+    myRequestsScheduler = new Alarm(Alarm.ThreadToUse.POOLED_THREAD, this);
+  }
+
   @Override
   public void dispose() {
   }
@@ -320,12 +334,28 @@ public class VmServiceWrapper implements Disposable {
   }
 
   public void resumeIsolate(@NotNull final String isolateId, @Nullable final StepOption stepOption) {
+    myObjectCache.isolateResumed(isolateId);
     addRequest(() -> {
       myLatestStep = stepOption;
       myVmService.resume(isolateId, stepOption, null, VmServiceConsumers.EMPTY_SUCCESS_CONSUMER);
     });
   }
 
+  /**
+   * Called when the VM reports that the isolate has been resumed, including resumes that were not initiated by the IDE.
+   */
+  public void isolateResumed(@NotNull final String isolateId) {
+    myObjectCache.isolateResumed(isolateId);
+  }
+
+  public void isolateReloaded(@NotNull final String isolateId) {
+    myObjectCache.isolateReloaded(isolateId);
+  }
+
+  public void isolateExit(@NotNull final String isolateId) {
+    myObjectCache.isolateExit(isolateId);
+  }
+
   public void pauseIsolate(@NotNull final String isolateId) {
     addRequest(() -> myVmService.pause(isolateId, VmServiceConsumers.EMPTY_SUCCESS_CONSUMER));
   }
@@ -393,7 +423,44 @@ public class VmServiceWrapper implements Disposable {
   }
 
   public void getObject(@NotNull final String isolateId, @NotNull final String objectId, @NotNull final GetObjectConsumer consumer) {
-    addRequest(() -> myVmService.getObject(isolateId, objectId, consumer));
+    final Obj cachedObject = myObjectCache.getCachedObject(isolateId, objectId);
+    if (cachedObject != null) {
+      deliverCachedObject(consumer, cachedObject);
+      return;
+    }
+
+    final GetObjectConsumer requestConsumer = myObjectCache.startRequest(isolateId, objectId, consumer);
+    if (requestConsumer != null) {
+      addRequest(() -> myVmService.getObject(isolateId, objectId, requestConsumer));
+    }
+  }
+
+  /**
+   * Sends requests for all objects at once, so that the VM processes them in a row without waiting for each response to be handled.
+   */
+  public void getObjects(@NotNull final String isolateId, @NotNull final List<Pair<String, GetObjectConsumer>> objectIdsAndConsumers) {
+    final List<Pair<String, GetObjectConsumer>> requests = new ArrayList<>(objectIdsAndConsumers.size());
+
+    for (Pair<String, GetObjectConsumer> pair : objectIdsAndConsumers) {
+      final Obj cachedObject = myObjectCache.getCachedObject(isolateId, pair.first);
+      if (cachedObject != null) {
+        deliverCachedObject(pair.second, cachedObject);
+        continue;
+      }
+
+      final GetObjectConsumer requestConsumer = myObjectCache.startRequest(isolateId, pair.first, pair.second);
+      if (requestConsumer != null) {
+        requests.add(Pair.create(pair.first, requestConsumer));
+      }
+    }
+
+    if (!requests.isEmpty()) {
+      addRequest(() -> {
+        for (Pair<String, GetObjectConsumer> request : requests) {
+          myVmService.getObject(isolateId, request.first, request.second);
+        }
+      });
+    }
   }
 
   public void getCollectionObject(@NotNull final String isolateId,
@@ -401,7 +468,55 @@ public class VmServiceWrapper implements Disposable {
                                   final int offset,
                                   final int count,
                                   @NotNull final GetObjectConsumer consumer) {
-    addRequest(() -> myVmService.getObject(isolateId, objectId, offset, count, consumer));
+    final String key = VmObjectCache.getCollectionObjectKey(objectId, offset, count);
+    final Obj cachedObject = myObjectCache.getCachedObject(isolateId, key);
+    if (cachedObject != null) {
+      deliverCachedObject(consumer, cachedObject);
+      return;
+    }
+
+    final GetObjectConsumer requestConsumer = myObjectCache.startRequest(isolateId, key, consumer);
+    if (requestConsumer != null) {
+      addRequest(() -> myVmService.getObject(isolateId, objectId, offset, count, requestConsumer));
+    }
+  }
+
+  /**
+   * Requests the first page of each collection (the one shown when the node is expanded) in advance,
+   * so that expanding collections visible in the frame doesn't need a round trip to the VM.
+   */
+  public void prefetchCollectionObjects(@NotNull final String isolateId, @NotNull final List<InstanceRef> collections) {
+    final List<Pair<InstanceRef, GetObjectConsumer>> requests = new ArrayList<>(collections.size());
+
+    for (InstanceRef collection : collections) {
+      final String key = VmObjectCache.getCollectionObjectKey(collection.getId(), 0, getFirstPageSize(collection));
+      if (myObjectCache.getCachedObject(isolateId, key) != null) continue;
+
+      final GetObjectConsumer requestConsumer = myObjectCache.startRequest(isolateId, key, VmServiceConsumers.EMPTY_GET_OBJECT_CONSUMER);
+      if (requestConsumer != null) {
+        requests.add(Pair.create(collection, requestConsumer));
+      }
+    }
+
+    if (!requests.isEmpty()) {
+      addRequest(() -> {
+        for (Pair<InstanceRef, GetObjectConsumer> request : requests) {
+          myVmService.getObject(isolateId, request.first.getId(), 0, getFirstPageSize(request.first), request.second);
+        }
+      });
+    }
+  }
+
+  /**
+   * Cached objects are passed to the consumer on another thread, the same way as VM responses, so that the consumer is never
+   * called before the method that requested the object returns.
+   */
+  private static void deliverCachedObject(@NotNull final GetObjectConsumer consumer, @NotNull final Obj cachedObject) {
+    ApplicationManager.getApplication().executeOnPooledThread(() -> consumer.received(cachedObject));
+  }
+
+  private static int getFirstPageSize(@NotNull final InstanceRef collection) {
+    return Math.min(collection.getLength(), XCompositeNode.MAX_CHILDREN_TO_SHOW);
   }
 
   public void evaluateInFrame(@NotNull final String isolateId,
@@ -412,11 +527,13 @@ public class VmServiceWrapper implements Disposable {
     addRequest(() -> myVmService.evaluateInFrame(isolateId, vmFrame.getIndex(), expression, new EvaluateInFrameConsumer() {
       @Override
       public void received(InstanceRef instanceRef) {
+        myObjectCache.pausedStateChanged(isolateId);
         callback.evaluated(new DartVmServiceValue(myDebugProcess, isolateId, "result", instanceRef, null, null, false));
       }
 
       @Override
       public void received(ErrorRef errorRef) {
+        myObjectCache.pausedStateChanged(isolateId);
         if (reportIfError) {
           callback.errorOccurred(DartVmServiceEvaluator.getPresentableError(errorRef.getMessage()));
         }
@@ -431,6 +548,11 @@ public class VmServiceWrapper implements Disposable {
     }));
   }
 
+  /**
+   * Used to compute presentations of values (<code>toString()</code>), so objects cached for the paused isolate are kept: otherwise
+   * drawing the Variables view would drop the objects prefetched for the frame. Expressions evaluated by the user go through
+   * {@link #evaluateInFrame}, which drops them.
+   */
   @SuppressWarnings("SameParameterValue")
   public void evaluateInTargetContext(@NotNull final String isolateId,
                                       @NotNull final String targetId,
@@ -2,6 +2,7 @@ package com.jetbrains.lang.dart.ide.runner.server.vmService.frame;
 
 import com.google.gson.JsonElement;
 import com.intellij.icons.AllIcons;
+import com.intellij.openapi.util.Pair;
 import com.intellij.util.SmartList;
 import com.intellij.xdebugger.frame.*;
 import com.jetbrains.lang.dart.ide.runner.server.vmService.DartVmServiceDebugProcess;
@@ -10,6 +11,8 @@ import org.dartlang.vm.service.element.*;
 import org.jetbrains.annotations.NotNull;
 
 import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 // similar to com.intellij.debugger.engine.JavaStaticGroup
@@ -51,8 +54,10 @@ class DartStaticFieldsGroup extends XValueGroup {
     final AtomicInteger counter = new AtomicInteger(myFieldRefs.size());
     final XValueChildrenList list = new XValueChildrenList(myFieldRefs.size());
 
+    final List<Pair<String, GetObjectConsumer>> requests = new ArrayList<>(myFieldRefs.size());
+
     for (final FieldRef fieldRef : myFieldRefs) {
-      myDebugProcess.getVmServiceWrapper().getObject(myIsolateId, fieldRef.getId(), new GetObjectConsumer() {
+      requests.add(Pair.create(fieldRef.getId(), new GetObjectConsumer() {
         @Override
         public void received(Obj field) {
           final InstanceRef instanceRef = ((Field)field).getStaticValue();
@@ -95,7 +100,9 @@ class DartStaticFieldsGroup extends XValueGroup {
         public void onError(RPCError error) {
           node.setErrorMessage(error.getMessage());
         }
-      });
+      }));
     }
+
+    myDebugProcess.getVmServiceWrapper().getObjects(myIsolateId, requests);
   }
 }
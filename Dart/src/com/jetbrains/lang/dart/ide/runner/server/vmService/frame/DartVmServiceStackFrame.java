@@ -17,6 +17,8 @@ import org.dartlang.vm.service.element.*;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.List;
+
 public class DartVmServiceStackFrame extends XStackFrame {
 
   @NotNull private final DartVmServiceDebugProcess myDebugProcess;
@@ -128,6 +130,7 @@ public class DartVmServiceStackFrame extends XStackFrame {
 
   private void addVars(@NotNull final XCompositeNode node, @NotNull final ElementList<BoundVariable> vars) {
     final XValueChildrenList childrenList = new XValueChildrenList(vars.size());
+    final List<InstanceRef> collections = new SmartList<>();
 
     for (BoundVariable var : vars) {
       final InstanceRef value = var.getValue();
@@ -137,9 +140,17 @@ public class DartVmServiceStackFrame extends XStackFrame {
           ? null
           : new DartVmServiceValue.LocalVarSourceLocation(myVmFrame.getLocation().getScript(), var.getDeclarationTokenPos());
         childrenList.add(new DartVmServiceValue(myDebugProcess, myIsolateId, var.getName(), value, varLocation, null, false));
+
+        if (DartVmServiceValue.isCollectionKind(value.getKind()) && value.getLength() > 0) {
+          collections.add(value);
+        }
       }
     }
 
+    if (!collections.isEmpty()) {
+      myDebugProcess.getVmServiceWrapper().prefetchCollectionObjects(myIsolateId, collections);
+    }
+
     node.addChildren(childrenList, true);
   }
 
@@ -448,6 +448,10 @@ public class DartVmServiceValue extends XNamedValue {
     }
   }
 
+  static boolean isCollectionKind(@NotNull final InstanceKind kind) {
+    return isListKind(kind) || kind == InstanceKind.Map;
+  }
+
   private static boolean isListKind(@NotNull final InstanceKind kind) {
     // List, Uint8ClampedList, Uint8List, Uint16List, Uint32List, Uint64List, Int8List, Int16List, Int32List, Int64List, Float32List, Float64List, Int32x4List, Float32x4List, Float64x2List
     return kind == InstanceKind.List ||
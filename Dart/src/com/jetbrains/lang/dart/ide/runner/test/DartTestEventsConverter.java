@@ -1,6 +1,8 @@
 package com.jetbrains.lang.dart.ide.runner.test;
 
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.intellij.execution.testframework.TestConsoleProperties;
 import com.intellij.execution.testframework.sm.ServiceMessageBuilder;
 import com.intellij.execution.testframework.sm.runner.OutputToGeneralTestEventsConverter;
@@ -16,9 +18,11 @@ import jetbrains.buildServer.messages.serviceMessages.ServiceMessageVisitor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
+import java.io.StringReader;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -70,6 +74,8 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
   private static final String JSON_LINE = "line";
   private static final String JSON_COLUMN = "column";
   private static final String JSON_URL = "url";
+  private static final String JSON_SKIP = "skip";
+  private static final String JSON_SKIP_REASON = "skipReason";
 
   private static final String RESULT_SUCCESS = "success";
   private static final String RESULT_FAILURE = "failure";
@@ -117,24 +123,42 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
   }
 
   private boolean processEventText(final String text) throws JsonSyntaxException, ParseException {
-    JsonParser jp = new JsonParser();
-    JsonElement elem;
+    if (!StringUtil.trimLeading(text).startsWith("{")) {
+      // not an event of the json reporter, let the lenient tree parser decide how to handle it exactly as before
+      return processNonEventText(text);
+    }
+
+    final Event event;
     try {
-      elem = jp.parse(text);
+      event = Event.read(text);
+    }
+    catch (IOException | IllegalStateException | NumberFormatException e) {
+      return handleMalformedText(text);
+    }
+
+    return process(event);
+  }
+
+  private boolean processNonEventText(final String text) throws ParseException {
+    try {
+      new JsonParser().parse(text);
     }
     catch (JsonSyntaxException ex) {
-      if (text.contains("\"json\" is not an allowed value for option \"reporter\"")) {
-        final ServiceMessageBuilder testStarted = ServiceMessageBuilder.testStarted("Failed to start");
-        final ServiceMessageBuilder testFailed = ServiceMessageBuilder.testFailed("Failed to start");
-        testFailed.addAttribute("message", "Please update your pubspec.yaml dependency on package:test to version 0.12.9 or later.");
-        final ServiceMessageBuilder testFinished = ServiceMessageBuilder.testFinished("Failed to start");
-        return finishMessage(testStarted, 1, 0) & finishMessage(testFailed, 1, 0) & finishMessage(testFinished, 1, 0);
-      }
+      return handleMalformedText(text);
+    }
+    return false;
+  }
 
-      return doProcessServiceMessages(text);
+  private boolean handleMalformedText(final String text) throws ParseException {
+    if (text.contains("\"json\" is not an allowed value for option \"reporter\"")) {
+      final ServiceMessageBuilder testStarted = ServiceMessageBuilder.testStarted("Failed to start");
+      final ServiceMessageBuilder testFailed = ServiceMessageBuilder.testFailed("Failed to start");
+      testFailed.addAttribute("message", "Please update your pubspec.yaml dependency on package:test to version 0.12.9 or later.");
+      final ServiceMessageBuilder testFinished = ServiceMessageBuilder.testFinished("Failed to start");
+      return finishMessage(testStarted, 1, 0) & finishMessage(testFailed, 1, 0) & finishMessage(testFinished, 1, 0);
     }
-    if (elem == null || !elem.isJsonObject()) return false;
-    return process(elem.getAsJsonObject());
+
+    return doProcessServiceMessages(text);
   }
 
   private boolean doProcessServiceMessages(@NotNull final String text) throws ParseException {
@@ -142,8 +166,8 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
     return super.processServiceMessages(text, myCurrentOutputType, myCurrentVisitor);
   }
 
-  private boolean process(JsonObject obj) throws JsonSyntaxException, ParseException {
-    String type = obj.get(JSON_TYPE).getAsString();
+  private boolean process(Event obj) throws ParseException {
+    String type = obj.type;
     if (TYPE_TEST_START.equals(type)) {
       return handleTestStart(obj);
     }
@@ -176,10 +200,7 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
     }
   }
 
-  private boolean handleTestStart(JsonObject obj) throws ParseException {
-    final JsonObject testObj = obj.getAsJsonObject(DEF_TEST);
-
-    // Not reached if testObj == null.
+  private boolean handleTestStart(Event obj) throws ParseException {
     final Test test = getTest(obj);
     myTestIdToTimestamp.put(test.getId(), getTimestamp(obj));
 
@@ -207,7 +228,7 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
     addLocationHint(testStarted, test);
     boolean result = finishMessage(testStarted, test.getId(), test.getValidParentId());
 
-    final Metadata metadata = Metadata.from(testObj.getAsJsonObject(DEF_METADATA));
+    final Metadata metadata = test.getMetadata();
     if (metadata.skip) {
       final ServiceMessageBuilder message = ServiceMessageBuilder.testIgnored(test.getBaseName());
       if (metadata.skipReason != null) message.addAttribute("message", metadata.skipReason);
@@ -229,7 +250,7 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
            group != null && group.getDoneTestsCount() > 0 && test.getBaseName().equals(TEAR_DOWN_ALL_VIRTUAL_TEST_NAME);
   }
 
-  private boolean handleTestDone(JsonObject obj) throws ParseException {
+  private boolean handleTestDone(Event obj) throws ParseException {
     final Test test = getTest(obj);
 
     if (!test.myTestStartReported) return true;
@@ -257,8 +278,8 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
     return true;
   }
 
-  private boolean handleGroup(JsonObject obj) throws ParseException {
-    Group group = getGroup(obj.getAsJsonObject(DEF_GROUP));
+  private boolean handleGroup(Event obj) throws ParseException {
+    Group group = getGroup(obj.group);
 
     // From spec: The implicit group at the root of each test suite has null name and parentID attributes.
     if (group.getParent() == null && group.getTestCount() > 0) {
@@ -276,15 +297,15 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
     return finishMessage(groupMsg, group.getId(), group.getValidParentId());
   }
 
-  private boolean handleSuite(JsonObject obj) throws ParseException {
-    Suite suite = getSuite(obj.getAsJsonObject(DEF_SUITE));
+  private boolean handleSuite(Event obj) throws ParseException {
+    Suite suite = getSuite(obj.suite);
     if (!suite.hasPath()) {
       mySuiteData.remove(suite.getId());
     }
     return true;
   }
 
-  private boolean handleError(JsonObject obj) throws ParseException {
+  private boolean handleError(Event obj) throws ParseException {
     final Test test = getTest(obj);
     final String message = getErrorMessage(obj);
     boolean result = true;
@@ -322,7 +343,7 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
         }
       }
 
-      if (!getBoolean(obj, JSON_IS_FAILURE)) testError.addAttribute("error", "true");
+      if (!getIsFailure(obj)) testError.addAttribute("error", "true");
       testError.addAttribute("message", appendLineBreakIfNeeded(failureMessage));
 
       result &= finishMessage(testError, test.getId(), test.getValidParentId());
@@ -343,14 +364,13 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
     return message.endsWith("\n") ? message : message + "\n";
   }
 
-  private boolean handleAllSuites(JsonObject obj) {
-    JsonElement elem = obj.get(JSON_COUNT);
-    if (elem == null || !elem.isJsonPrimitive()) return true;
-    mySuitCount = elem.getAsInt();
+  private boolean handleAllSuites(Event obj) {
+    if (obj.count == null) return true;
+    mySuitCount = obj.count;
     return true;
   }
 
-  private boolean handlePrint(JsonObject obj) throws ParseException {
+  private boolean handlePrint(Event obj) throws ParseException {
     final Test test = getTest(obj);
     boolean result = true;
 
@@ -370,7 +390,7 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
     return result & finishMessage(message, test.getId(), test.getValidParentId());
   }
 
-  private boolean handleStart(JsonObject obj) throws ParseException {
+  private boolean handleStart(Event obj) throws ParseException {
     myTestIdToTimestamp.clear();
     myTestData.clear();
     myGroupData.clear();
@@ -380,7 +400,7 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
     return doProcessServiceMessages(new ServiceMessageBuilder("enteredTheMatrix").toString());
   }
 
-  private boolean handleDone(JsonObject obj) throws ParseException {
+  private boolean handleDone(Event obj) throws ParseException {
     // The test runner has reached the end of the tests.
     processAllTestsDone();
     return true;
@@ -445,101 +465,277 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
     messageBuilder.addAttribute("locationHint", location);
   }
 
-  private static long getTimestamp(JsonObject obj) throws ParseException {
-    return getLong(obj, JSON_MILLIS);
-  }
-
-  private static long getLong(JsonObject obj, String name) throws ParseException {
-    JsonElement val = obj == null ? null : obj.get(name);
-    if (val == null || !val.isJsonPrimitive()) throw new ParseException("Value is not type long: " + val, 0);
-    return val.getAsLong();
+  private static long getTimestamp(Event obj) throws ParseException {
+    if (obj.time == null) throw new ParseException("Value is not type long: " + obj.time, 0);
+    return obj.time;
   }
 
-  private static boolean getBoolean(JsonObject obj, String name) throws ParseException {
-    JsonElement val = obj == null ? null : obj.get(name);
-    if (val == null || !val.isJsonPrimitive()) throw new ParseException("Value is not type boolean: " + val, 0);
-    return val.getAsBoolean();
+  private static boolean getIsFailure(Event obj) throws ParseException {
+    if (obj.isFailure == null) throw new ParseException("Value is not type boolean: " + obj.isFailure, 0);
+    return obj.isFailure;
   }
 
   @NotNull
-  private Test getTest(JsonObject obj) throws ParseException {
-    return getItem(obj, myTestData);
+  private Test getTest(Event obj) throws ParseException {
+    if (obj.testId != null) return myTestData.get(obj.testId);
+    if (obj.test != null) return getItem(obj.test, myTestData);
+    throw new ParseException("No testId in json object", 0);
   }
 
   @NotNull
-  private Group getGroup(JsonObject obj) throws ParseException {
+  private Group getGroup(ItemData obj) throws ParseException {
     return getItem(obj, myGroupData);
   }
 
   @NotNull
-  private Suite getSuite(JsonObject obj) throws ParseException {
+  private Suite getSuite(ItemData obj) throws ParseException {
     return getItem(obj, mySuiteData);
   }
 
   @NotNull
-  private <T extends Item> T getItem(JsonObject obj, Map<Integer, T> items) throws ParseException {
+  private <T extends Item> T getItem(ItemData obj, Map<Integer, T> items) throws ParseException {
     if (obj == null) throw new ParseException("Unexpected null json object", 0);
-    T item;
-    JsonElement id = obj.get(JSON_ID);
-    if (id != null) {
-      if (items == myTestData) {
-        @SuppressWarnings("unchecked") T type = (T)Test.from(obj, myGroupData, mySuiteData);
-        item = type;
-      }
-      else if (items == myGroupData) {
-        @SuppressWarnings("unchecked") T group = (T)Group.from(obj, myGroupData, mySuiteData);
-        item = group;
-      }
-      else {
-        @SuppressWarnings("unchecked") T suite = (T)Suite.from(obj);
-        item = suite;
-      }
-      items.put(id.getAsInt(), item);
+    if (obj.id == null) throw new ParseException("No id in json object", 0);
+
+    final T item;
+    if (items == myTestData) {
+      @SuppressWarnings("unchecked") T type = (T)Test.from(obj, myGroupData, mySuiteData);
+      item = type;
+    }
+    else if (items == myGroupData) {
+      @SuppressWarnings("unchecked") T group = (T)Group.from(obj, myGroupData, mySuiteData);
+      item = group;
     }
     else {
-      JsonElement testId = obj.get(JSON_TEST_ID);
-      if (testId != null) {
-        int baseId = testId.getAsInt();
-        item = items.get(baseId);
-      }
-      else {
-        JsonElement testObj = obj.get(DEF_TEST);
-        if (testObj != null) {
-          return getItem(testObj.getAsJsonObject(), items);
-        }
-        else {
-          throw new ParseException("No testId in json object", 0);
-        }
-      }
+      @SuppressWarnings("unchecked") T suite = (T)Suite.from(obj);
+      item = suite;
     }
+    items.put(obj.id, item);
     return item;
   }
 
   @NotNull
-  private static String getErrorMessage(JsonObject obj) {
-    return nonNullJsonValue(obj, JSON_ERROR_MESSAGE, "<no error message>");
+  private static String getErrorMessage(Event obj) {
+    return obj.error != null ? obj.error : "<no error message>";
   }
 
   @NotNull
-  private static String getMessage(JsonObject obj) {
-    return nonNullJsonValue(obj, JSON_MESSAGE, "<no message>");
+  private static String getMessage(Event obj) {
+    return obj.message != null ? obj.message : "<no message>";
   }
 
   @NotNull
-  private static String getStackTrace(JsonObject obj) {
-    return nonNullJsonValue(obj, JSON_STACK_TRACE, "<no stack trace>");
+  private static String getStackTrace(Event obj) {
+    return obj.stackTrace != null ? obj.stackTrace : "<no stack trace>";
   }
 
   @NotNull
-  private static String getResult(JsonObject obj) {
-    return nonNullJsonValue(obj, JSON_RESULT, "<no result>");
+  private static String getResult(Event obj) {
+    return obj.result != null ? obj.result : "<no result>";
+  }
+
+  /**
+   * One line of the json reporter output. Decoded in a streaming manner straight into fields, without building a JsonElement tree
+   * and without reflection, because large test suites produce hundreds of thousands of events.
+   */
+  private static class Event {
+    private String type;
+    private Long time;
+    private Integer testId;
+    private Integer count;
+    private String result;
+    private String message;
+    private String error;
+    private String stackTrace;
+    private Boolean isFailure;
+    private ItemData test;
+    private ItemData group;
+    private ItemData suite;
+
+    @NotNull
+    static Event read(@NotNull final String text) throws IOException {
+      final JsonReader reader = new JsonReader(new StringReader(text));
+      reader.setLenient(true);
+
+      final Event event = new Event();
+      reader.beginObject();
+      while (reader.hasNext()) {
+        final String name = reader.nextName();
+        if (JSON_TYPE.equals(name)) {
+          event.type = nextString(reader);
+        }
+        else if (JSON_MILLIS.equals(name)) {
+          event.time = nextLong(reader);
+        }
+        else if (JSON_TEST_ID.equals(name)) {
+          event.testId = nextInt(reader);
+        }
+        else if (JSON_COUNT.equals(name)) {
+          event.count = nextInt(reader);
+        }
+        else if (JSON_RESULT.equals(name)) {
+          event.result = nextString(reader);
+        }
+        else if (JSON_MESSAGE.equals(name)) {
+          event.message = nextString(reader);
+        }
+        else if (JSON_ERROR_MESSAGE.equals(name)) {
+          event.error = nextString(reader);
+        }
+        else if (JSON_STACK_TRACE.equals(name)) {
+          event.stackTrace = nextString(reader);
+        }
+        else if (JSON_IS_FAILURE.equals(name)) {
+          event.isFailure = nextBoolean(reader);
+        }
+        else if (DEF_TEST.equals(name)) {
+          event.test = ItemData.read(reader);
+        }
+        else if (DEF_GROUP.equals(name)) {
+          event.group = ItemData.read(reader);
+        }
+        else if (DEF_SUITE.equals(name)) {
+          event.suite = ItemData.read(reader);
+        }
+        else {
+          reader.skipValue();
+        }
+      }
+      reader.endObject();
+
+      if (reader.peek() != JsonToken.END_DOCUMENT) {
+        throw new IOException("Did not consume the entire document");
+      }
+
+      return event;
+    }
+  }
+
+  /**
+   * Test, group or suite description as found in the 'test', 'group' and 'suite' properties of an event.
+   */
+  private static class ItemData {
+    private Integer id;
+    private String name;
+    private int[] groupIds;
+    private Integer suiteId;
+    private Integer parentId;
+    private Integer testCount;
+    private Integer line;
+    private Integer column;
+    private String url;
+    private String path;
+    private String platform;
+    private Metadata metadata;
+
+    @Nullable
+    static ItemData read(@NotNull final JsonReader reader) throws IOException {
+      if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+        reader.skipValue();
+        return null;
+      }
+
+      final ItemData data = new ItemData();
+      reader.beginObject();
+      while (reader.hasNext()) {
+        final String name = reader.nextName();
+        if (JSON_ID.equals(name)) {
+          data.id = nextInt(reader);
+        }
+        else if (JSON_NAME.equals(name)) {
+          data.name = nextString(reader);
+        }
+        else if (JSON_GROUP_IDS.equals(name)) {
+          data.groupIds = nextIntArray(reader);
+        }
+        else if (JSON_SUITE_ID.equals(name)) {
+          data.suiteId = nextInt(reader);
+        }
+        else if (JSON_PARENT_ID.equals(name)) {
+          data.parentId = nextInt(reader);
+        }
+        else if (JSON_TEST_COUNT.equals(name)) {
+          data.testCount = nextInt(reader);
+        }
+        else if (JSON_LINE.equals(name)) {
+          data.line = nextInt(reader);
+        }
+        else if (JSON_COLUMN.equals(name)) {
+          data.column = nextInt(reader);
+        }
+        else if (JSON_URL.equals(name)) {
+          data.url = nextString(reader);
+        }
+        else if (JSON_PATH.equals(name)) {
+          data.path = nextString(reader);
+        }
+        else if (JSON_PLATFORM.equals(name)) {
+          data.platform = nextString(reader);
+        }
+        else if (DEF_METADATA.equals(name)) {
+          data.metadata = Metadata.read(reader);
+        }
+        else {
+          reader.skipValue();
+        }
+      }
+      reader.endObject();
+      return data;
+    }
   }
 
-  @NotNull
-  private static String nonNullJsonValue(JsonObject obj, @NotNull String id, @NotNull String def) {
-    JsonElement val = obj == null ? null : obj.get(id);
-    if (val == null || !val.isJsonPrimitive()) return def;
-    return val.getAsString();
+  @Nullable
+  private static String nextString(@NotNull final JsonReader reader) throws IOException {
+    final JsonToken token = reader.peek();
+    if (token == JsonToken.STRING || token == JsonToken.NUMBER) return reader.nextString();
+    if (token == JsonToken.BOOLEAN) return String.valueOf(reader.nextBoolean());
+    reader.skipValue();
+    return null;
+  }
+
+  @Nullable
+  private static Integer nextInt(@NotNull final JsonReader reader) throws IOException {
+    final JsonToken token = reader.peek();
+    if (token == JsonToken.NUMBER || token == JsonToken.STRING) return reader.nextInt();
+    reader.skipValue();
+    return null;
+  }
+
+  @Nullable
+  private static Long nextLong(@NotNull final JsonReader reader) throws IOException {
+    final JsonToken token = reader.peek();
+    if (token == JsonToken.NUMBER || token == JsonToken.STRING) return reader.nextLong();
+    reader.skipValue();
+    return null;
+  }
+
+  @Nullable
+  private static Boolean nextBoolean(@NotNull final JsonReader reader) throws IOException {
+    final JsonToken token = reader.peek();
+    if (token == JsonToken.BOOLEAN) return reader.nextBoolean();
+    if (token == JsonToken.STRING) return Boolean.valueOf(reader.nextString());
+    reader.skipValue();
+    return null;
+  }
+
+  @Nullable
+  private static int[] nextIntArray(@NotNull final JsonReader reader) throws IOException {
+    if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+      reader.skipValue();
+      return null;
+    }
+
+    int[] result = new int[4];
+    int size = 0;
+    reader.beginArray();
+    while (reader.hasNext()) {
+      if (size == result.length) {
+        result = Arrays.copyOf(result, size * 2);
+      }
+      result[size++] = reader.nextInt();
+    }
+    reader.endArray();
+    return size == result.length ? result : Arrays.copyOf(result, size);
   }
 
   private static class Item {
@@ -553,30 +749,16 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
     private final int myColumn;
     private final String myUrl;
 
-    static int extractInt(JsonObject obj, String memberName) {
-      JsonElement elem = obj.get(memberName);
-      if (elem == null || !elem.isJsonPrimitive()) return -1;
-      return elem.getAsInt();
+    static int intOrMinusOne(@Nullable final Integer value) {
+      return value == null ? -1 : value;
     }
 
-    static String extractString(JsonObject obj, String memberName, String defaultResult) {
-      JsonElement elem = obj.get(memberName);
-      if (elem == null || elem.isJsonNull()) return defaultResult;
-      return elem.getAsString();
+    static Metadata metadataOrDefault(@Nullable final Metadata metadata) {
+      return metadata == null ? new Metadata() : metadata;
     }
 
-    static Metadata extractMetadata(JsonObject obj) {
-      return Metadata.from(obj.get(DEF_METADATA));
-    }
-
-    static Suite lookupSuite(JsonObject obj, Map<Integer, Suite> suites) {
-      JsonElement suiteObj = obj.get(JSON_SUITE_ID);
-      Suite suite = null;
-      if (suiteObj != null && suiteObj.isJsonPrimitive()) {
-        int parentId = suiteObj.getAsInt();
-        suite = suites.get(parentId);
-      }
-      return suite;
+    static Suite lookupSuite(ItemData obj, Map<Integer, Suite> suites) {
+      return obj.suiteId == null ? null : suites.get(obj.suiteId);
     }
 
     Item(int id, String name, Group parent, Suite suite, Metadata metadata, int line, int column, String url) {
@@ -702,17 +884,17 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
     private boolean myTestStartReported = false;
     private boolean myTestErrorReported = false;
 
-    static Test from(JsonObject obj, Map<Integer, Group> groups, Map<Integer, Suite> suites) {
-      int[] groupIds = GSON.fromJson(obj.get(JSON_GROUP_IDS), (Type)int[].class);
+    static Test from(ItemData obj, Map<Integer, Group> groups, Map<Integer, Suite> suites) {
+      int[] groupIds = obj.groupIds;
       Group parent = null;
       if (groupIds != null && groupIds.length > 0) {
         parent = groups.get(groupIds[groupIds.length - 1]);
       }
       Suite suite = lookupSuite(obj, suites);
-      final int line = extractInt(obj, JSON_LINE);
-      final int column = extractInt(obj, JSON_COLUMN);
-      return new Test(extractInt(obj, JSON_ID), extractString(obj, JSON_NAME, NO_NAME), parent, suite, extractMetadata(obj),
-                      line < 0 ? -1 : line - 1, column < 0 ? -1 : column - 1, extractString(obj, JSON_URL, null));
+      final int line = intOrMinusOne(obj.line);
+      final int column = intOrMinusOne(obj.column);
+      return new Test(intOrMinusOne(obj.id), obj.name != null ? obj.name : NO_NAME, parent, suite, metadataOrDefault(obj.metadata),
+                      line < 0 ? -1 : line - 1, column < 0 ? -1 : column - 1, obj.url);
     }
 
     Test(int id, String name, Group parent, Suite suite, Metadata metadata, int line, int column, String url) {
@@ -730,19 +912,13 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
     private int myTestCount = 0;
     private int myDoneTestsCount = 0;
 
-    static Group from(JsonObject obj, Map<Integer, Group> groups, Map<Integer, Suite> suites) {
-      JsonElement parentObj = obj.get(JSON_PARENT_ID);
-      Group parent = null;
-      if (parentObj != null && parentObj.isJsonPrimitive()) {
-        int parentId = parentObj.getAsInt();
-        parent = groups.get(parentId);
-      }
+    static Group from(ItemData obj, Map<Integer, Group> groups, Map<Integer, Suite> suites) {
+      Group parent = obj.parentId == null ? null : groups.get(obj.parentId);
       Suite suite = lookupSuite(obj, suites);
-      final int line = extractInt(obj, JSON_LINE);
-      final int column = extractInt(obj, JSON_COLUMN);
-      return new Group(extractInt(obj, JSON_ID), extractString(obj, JSON_NAME, NO_NAME), parent, suite, extractMetadata(obj),
-                       extractInt(obj, JSON_TEST_COUNT), line < 0 ? -1 : line - 1, column < 0 ? -1 : column - 1,
-                       extractString(obj, JSON_URL, null));
+      final int line = intOrMinusOne(obj.line);
+      final int column = intOrMinusOne(obj.column);
+      return new Group(intOrMinusOne(obj.id), obj.name != null ? obj.name : NO_NAME, parent, suite, metadataOrDefault(obj.metadata),
+                       intOrMinusOne(obj.testCount), line < 0 ? -1 : line - 1, column < 0 ? -1 : column - 1, obj.url);
     }
 
     Group(int id, String name, Group parent, Suite suite, Metadata metadata, int count, int line, int column, String url) {
@@ -771,8 +947,8 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
     static Metadata NoMetadata = new Metadata();
     static String NONE = "<none>";
 
-    static Suite from(JsonObject obj) {
-      return new Suite(extractInt(obj, JSON_ID), extractString(obj, JSON_PATH, NONE), extractString(obj, JSON_PLATFORM, NONE));
+    static Suite from(ItemData obj) {
+      return new Suite(intOrMinusOne(obj.id), obj.path != null ? obj.path : NONE, obj.platform != null ? obj.platform : NONE);
     }
 
     private final String myPlatform;
@@ -796,12 +972,33 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
   }
 
   private static class Metadata {
-    @SuppressWarnings("unused") private boolean skip; // assigned by GSON via reflection
-    @SuppressWarnings("unused") private String skipReason; // assigned by GSON via reflection
+    private boolean skip;
+    private String skipReason;
+
+    @Nullable
+    static Metadata read(@NotNull final JsonReader reader) throws IOException {
+      if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+        reader.skipValue();
+        return null;
+      }
 
-    static Metadata from(JsonElement elem) {
-      if (elem == null) return new Metadata();
-      return GSON.fromJson(elem, (Type)Metadata.class);
+      final Metadata metadata = new Metadata();
+      reader.beginObject();
+      while (reader.hasNext()) {
+        final String name = reader.nextName();
+        if (JSON_SKIP.equals(name)) {
+          final Boolean skip = nextBoolean(reader);
+          metadata.skip = skip != null && skip;
+        }
+        else if (JSON_SKIP_REASON.equals(name)) {
+          metadata.skipReason = nextString(reader);
+        }
+        else {
+          reader.skipValue();
+        }
+      }
+      reader.endObject();
+      return metadata;
     }
   }
 }
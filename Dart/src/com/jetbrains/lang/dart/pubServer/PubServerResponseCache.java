@@ -0,0 +1,201 @@
+package com.jetbrains.lang.dart.pubServer;
+
+import com.intellij.openapi.util.io.BufferExposingByteArrayOutputStream;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.io.URLUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps successful responses of <code>pub serve</code> to GET requests, so that reloading a page in the browser doesn't make
+ * <code>pub serve</code> transfer all unchanged assets once again. Output of <code>pub serve</code> may depend on any file (transformers,
+ * dart2js), so all responses are dropped on any VFS change. A response is also dropped if the file with the requested path has changed
+ * on disk since the request, as VFS may be not refreshed yet. Least recently used responses are dropped when total size exceeds the limit.
+ */
+final class PubServerResponseCache {
+  private static final int MAX_TOTAL_SIZE = 32 * 1024 * 1024;
+  private static final int MAX_RESPONSE_SIZE = 4 * 1024 * 1024;
+
+  private static final class CachedResponse {
+    private final HttpHeaders headers;
+    private final byte[] content;
+    private final int contentLength;
+    private final String etag;
+    private final FileStamp fileStamp;
+
+    private CachedResponse(@NotNull final HttpHeaders headers,
+                           @NotNull final byte[] content,
+                           final int contentLength,
+                           @NotNull final String etag,
+                           @NotNull final FileStamp fileStamp) {
+      this.headers = headers;
+      this.content = content;
+      this.contentLength = contentLength;
+      this.etag = etag;
+      this.fileStamp = fileStamp;
+    }
+  }
+
+  /**
+   * Disk state of the file with the requested path, if any. Generated assets have no such file and rely on VFS change events only.
+   */
+  private static final class FileStamp {
+    private final long timeStamp;
+    private final long length;
+
+    private FileStamp(@NotNull final File file) {
+      // both are 0 for a missing file
+      timeStamp = file.lastModified();
+      length = file.length();
+    }
+
+    private boolean isUpToDate(@NotNull final File file) {
+      return timeStamp == file.lastModified() && length == file.length();
+    }
+  }
+
+  private final LinkedHashMap<String, CachedResponse> myResponses = new LinkedHashMap<>(16, 0.75f, true);
+  private int myTotalSize;
+  // incremented on each VFS change; responses to the requests sent before the change are not cached
+  private int myModificationCount;
+
+  @NotNull
+  private static String getKey(@NotNull final VirtualFile servedDir, @NotNull final String pathForPubServer) {
+    return servedDir.getPath() + ':' + pathForPubServer;
+  }
+
+  @NotNull
+  private static File getServedFile(@NotNull final VirtualFile servedDir, @NotNull final String pathForPubServer) {
+    return new File(servedDir.getPath(), URLUtil.unescapePercentSequences(pathForPubServer));
+  }
+
+  synchronized void clear() {
+    myModificationCount++;
+    myResponses.clear();
+    myTotalSize = 0;
+  }
+
+  /**
+   * @return response to be sent to the browser or <code>null</code> if the request should be forwarded to <code>pub serve</code>
+   */
+  @Nullable
+  synchronized FullHttpResponse getResponse(@NotNull final VirtualFile servedDir,
+                                            @NotNull final String pathForPubServer,
+                                            @NotNull final HttpRequest request) {
+    final boolean isHead = request.method() == HttpMethod.HEAD;
+    if (request.method() != HttpMethod.GET && !isHead) return null;
+
+    final String key = getKey(servedDir, pathForPubServer);
+    final CachedResponse cachedResponse = myResponses.get(key);
+    if (cachedResponse == null) return null;
+
+    if (!cachedResponse.fileStamp.isUpToDate(getServedFile(servedDir, pathForPubServer))) {
+      myResponses.remove(key);
+      myTotalSize -= cachedResponse.contentLength;
+      return null;
+    }
+
+    if (cachedResponse.etag.equals(request.headers().get(HttpHeaderNames.IF_NONE_MATCH))) {
+      final FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.NOT_MODIFIED);
+      response.headers().set(HttpHeaderNames.ETAG, cachedResponse.etag);
+      return response;
+    }
+
+    final ByteBuf content = isHead ? Unpooled.EMPTY_BUFFER : Unpooled.wrappedBuffer(cachedResponse.content, 0, cachedResponse.contentLength);
+    final FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, content);
+    response.headers().set(cachedResponse.headers);
+    HttpUtil.setContentLength(response, cachedResponse.contentLength);
+    return response;
+  }
+
+  /**
+   * @return collector for the response to the request, or <code>null</code> if it must not be cached
+   */
+  @Nullable
+  synchronized ResponseCollector startCollecting(@NotNull final VirtualFile servedDir,
+                                                 @NotNull final String pathForPubServer,
+                                                 @NotNull final HttpRequest request) {
+    if (request.method() != HttpMethod.GET) return null;
+    // taken before pub serve reads the file, so a change made while the request is processed invalidates the response
+    final FileStamp fileStamp = new FileStamp(getServedFile(servedDir, pathForPubServer));
+    return new ResponseCollector(getKey(servedDir, pathForPubServer), myModificationCount, fileStamp);
+  }
+
+  private synchronized void put(@NotNull final String key, final int modificationCount, @NotNull final CachedResponse response) {
+    if (modificationCount != myModificationCount) return;
+
+    final CachedResponse old = myResponses.put(key, response);
+    if (old != null) {
+      myTotalSize -= old.contentLength;
+    }
+    myTotalSize += response.contentLength;
+
+    final Iterator<Map.Entry<String, CachedResponse>> iterator = myResponses.entrySet().iterator();
+    while (myTotalSize > MAX_TOTAL_SIZE && iterator.hasNext()) {
+      myTotalSize -= iterator.next().getValue().contentLength;
+      iterator.remove();
+    }
+  }
+
+  final class ResponseCollector {
+    private final String myKey;
+    private final int myModificationCount;
+    private final FileStamp myFileStamp;
+    private HttpHeaders myHeaders;
+    private String myEtag;
+    private BufferExposingByteArrayOutputStream myContent;
+
+    private ResponseCollector(@NotNull final String key, final int modificationCount, @NotNull final FileStamp fileStamp) {
+      myKey = key;
+      myModificationCount = modificationCount;
+      myFileStamp = fileStamp;
+    }
+
+    /**
+     * Must be called before extra headers are added to the response. Adds ETag header to the response if it is going to be cached.
+     *
+     * @return <code>false</code> if the response is not cacheable and the collector must not be used anymore
+     */
+    boolean responseReceived(@NotNull final HttpResponse response) {
+      if (!HttpResponseStatus.OK.equals(response.status()) || HttpUtil.getContentLength(response, 0) > MAX_RESPONSE_SIZE) return false;
+
+      myEtag = response.headers().get(HttpHeaderNames.ETAG);
+      if (myEtag == null) {
+        myEtag = "\"" + Integer.toHexString(myModificationCount) + '-' + Integer.toHexString(myKey.hashCode()) + "\"";
+        response.headers().set(HttpHeaderNames.ETAG, myEtag);
+      }
+
+      myHeaders = new DefaultHttpHeaders().set(response.headers());
+      myHeaders.remove(HttpHeaderNames.CONNECTION);
+      myHeaders.remove(HttpHeaderNames.TRANSFER_ENCODING);
+      myHeaders.remove(HttpHeaderNames.CONTENT_LENGTH);
+      myContent = new BufferExposingByteArrayOutputStream((int)HttpUtil.getContentLength(response, 1024));
+      return true;
+    }
+
+    /**
+     * @return <code>false</code> if the response is too big to be cached and the collector must not be used anymore
+     */
+    boolean contentReceived(@NotNull final HttpContent content) {
+      final ByteBuf buffer = content.content();
+      if (myContent.size() + buffer.readableBytes() > MAX_RESPONSE_SIZE) return false;
+
+      final byte[] bytes = new byte[buffer.readableBytes()];
+      buffer.getBytes(buffer.readerIndex(), bytes);
+      myContent.write(bytes, 0, bytes.length);
+
+      if (content instanceof LastHttpContent) {
+        put(myKey, myModificationCount, new CachedResponse(myHeaders, myContent.getInternalBuffer(), myContent.size(), myEtag, myFileStamp));
+      }
+      return true;
+    }
+  }
+}
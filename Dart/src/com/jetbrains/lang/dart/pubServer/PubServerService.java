@@ -22,6 +22,9 @@ import com.intellij.openapi.ui.popup.Balloon;
 import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
 import com.intellij.openapi.wm.ToolWindowManager;
 import com.intellij.util.Consumer;
 import com.intellij.util.containers.ContainerUtil;
@@ -52,6 +55,7 @@ import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.util.Collection;
 import java.util.Deque;
+import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -73,6 +77,8 @@ final class PubServerService extends NetService {
 
   private final ConcurrentMap<VirtualFile, ServerInfo> servedDirToSocketAddress = ContainerUtil.newConcurrentMap();
 
+  private final PubServerResponseCache responseCache = new PubServerResponseCache();
+
   private static class ServerInfo {
     private final InetSocketAddress address;
     private final Deque<Channel> freeServerChannels = PlatformDependent.newConcurrentDeque();
@@ -85,10 +91,14 @@ final class PubServerService extends NetService {
   private static class ClientInfo {
     private final Channel channel;
     private final HttpHeaders extraHeaders;
+    @Nullable private PubServerResponseCache.ResponseCollector responseCollector;
 
-    private ClientInfo(@NotNull  Channel channel, @NotNull HttpHeaders extraHeaders) {
+    private ClientInfo(@NotNull  Channel channel,
+                       @NotNull HttpHeaders extraHeaders,
+                       @Nullable PubServerResponseCache.ResponseCollector responseCollector) {
       this.channel = channel;
       this.extraHeaders = extraHeaders;
+      this.responseCollector = responseCollector;
     }
   }
 
@@ -115,6 +125,13 @@ final class PubServerService extends NetService {
         channel.pipeline().addLast(new PubServeChannelHandler(), ChannelExceptionHandler.getInstance());
       }
     });
+
+    project.getMessageBus().connect(project).subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener.Adapter() {
+      @Override
+      public void after(@NotNull List<? extends VFileEvent> events) {
+        responseCache.clear();
+      }
+    });
   }
 
   @Nullable
@@ -161,6 +178,14 @@ final class PubServerService extends NetService {
                               @NotNull HttpHeaders extraHeaders,
                               @NotNull final VirtualFile servedDir,
                               @NotNull final String pathForPubServer) {
+    if (isPubServerProcessAlive()) {
+      final FullHttpResponse cachedResponse = responseCache.getResponse(servedDir, pathForPubServer, clientRequest);
+      if (cachedResponse != null) {
+        Responses.send(cachedResponse, clientChannel, clientRequest, extraHeaders);
+        return;
+      }
+    }
+
     clientRequest.retain();
 
     if (getProcessHandler().has()) {
@@ -223,6 +248,7 @@ final class PubServerService extends NetService {
   @Override
   protected void closeProcessConnections() {
     servedDirToSocketAddress.clear();
+    responseCache.clear();
 
     ClientInfo[] list;
     try {
@@ -291,12 +317,12 @@ final class PubServerService extends NetService {
         }
         else {
           serverChannel1.closeFuture().addListener(serverChannelCloseListener);
-          sendToServer(clientChannel, clientRequest, extraHeaders, pathToPubServe, serverChannel1);
+          sendToServer(servedDir, clientChannel, clientRequest, extraHeaders, pathToPubServe, serverChannel1);
         }
       });
     }
     else {
-      sendToServer(clientChannel, clientRequest, extraHeaders, pathToPubServe, serverChannel);
+      sendToServer(servedDir, clientChannel, clientRequest, extraHeaders, pathToPubServe, serverChannel);
     }
   }
 
@@ -315,8 +341,14 @@ final class PubServerService extends NetService {
     return null;
   }
 
-  private void sendToServer(@NotNull final Channel clientChannel, @NotNull FullHttpRequest clientRequest, @NotNull HttpHeaders extraHeaders, @NotNull String pathToPubServe, @NotNull Channel serverChannel) {
-    ClientInfo oldClientInfo = serverToClientChannel.put(serverChannel, new ClientInfo(clientChannel, extraHeaders));
+  private void sendToServer(@NotNull final VirtualFile servedDir,
+                            @NotNull final Channel clientChannel,
+                            @NotNull FullHttpRequest clientRequest,
+                            @NotNull HttpHeaders extraHeaders,
+                            @NotNull String pathToPubServe,
+                            @NotNull Channel serverChannel) {
+    PubServerResponseCache.ResponseCollector responseCollector = responseCache.startCollecting(servedDir, pathToPubServe, clientRequest);
+    ClientInfo oldClientInfo = serverToClientChannel.put(serverChannel, new ClientInfo(clientChannel, extraHeaders, responseCollector));
     LOG.assertTrue(oldClientInfo == null);
 
     // duplicate - content will be shared (opposite to copy), so, we use duplicate. see ByteBuf javadoc.
@@ -353,9 +385,17 @@ final class PubServerService extends NetService {
       else {
         if (message instanceof HttpResponse) {
           HttpResponse response = (HttpResponse)message;
+          if (clientInfo.responseCollector != null && !clientInfo.responseCollector.responseReceived(response)) {
+            clientInfo.responseCollector = null;
+          }
           HttpUtil.setKeepAlive(response, true);
           response.headers().add(clientInfo.extraHeaders);
         }
+        if (message instanceof HttpContent &&
+            clientInfo.responseCollector != null &&
+            !clientInfo.responseCollector.contentReceived((HttpContent)message)) {
+          clientInfo.responseCollector = null;
+        }
         if (message instanceof LastHttpContent) {
           serverToClientChannel.remove(serverChannel);
           ServerInfo serverInfo = getServerInfo(serverChannel);
@@ -0,0 +1,173 @@
+package com.jetbrains.lang.dart.analyzer;
+
+import com.google.dart.server.FormatConsumer;
+import com.google.dart.server.generated.AnalysisServer;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.testFramework.LightPlatformTestCase;
+import com.intellij.testFramework.LightVirtualFile;
+import com.intellij.util.PairConsumer;
+import com.intellij.util.containers.ContainerUtil;
+import org.dartlang.analysis.server.protocol.RequestError;
+import org.dartlang.analysis.server.protocol.RequestErrorCode;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Checks {@link DartAnalysisServerService#formatFiles} against a scripted server that answers edit_format requests only when told to.
+ */
+public class DartFormatFilesTest extends LightPlatformTestCase {
+  private static final long TIMEOUT = 200;
+
+  private static class ScriptedServer {
+    private final List<String> myRequestedPaths = Collections.synchronizedList(new ArrayList<>());
+    private final List<FormatConsumer> myUnanswered = new ArrayList<>();
+    private int myMaxUnanswered;
+    // called in the thread sending the request, after the request is registered
+    private Consumer<ScriptedServer> myOnRequest = server -> {};
+
+    private final AnalysisServer myServer = (AnalysisServer)Proxy.newProxyInstance(
+      AnalysisServer.class.getClassLoader(), new Class[]{AnalysisServer.class}, (proxy, method, args) -> {
+        switch (method.getName()) {
+          case "isSocketOpen":
+            return true;
+          case "edit_format":
+            synchronized (this) {
+              myRequestedPaths.add((String)args[0]);
+              myUnanswered.add((FormatConsumer)args[4]);
+              myMaxUnanswered = Math.max(myMaxUnanswered, myUnanswered.size());
+            }
+            myOnRequest.accept(this);
+            return null;
+          case "hashCode":
+            return System.identityHashCode(proxy);
+          case "equals":
+            return proxy == args[0];
+          case "toString":
+            return "ScriptedServer";
+          default:
+            throw new UnsupportedOperationException(method.getName());
+        }
+      });
+
+    private synchronized List<FormatConsumer> takeUnanswered() {
+      final List<FormatConsumer> result = new ArrayList<>(myUnanswered);
+      myUnanswered.clear();
+      return result;
+    }
+
+    private synchronized int getUnansweredCount() {
+      return myUnanswered.size();
+    }
+
+    /**
+     * Answers all unanswered requests in a pooled thread, as the real server does.
+     */
+    private Future<?> answerAll() {
+      final List<FormatConsumer> consumers = takeUnanswered();
+      return ApplicationManager.getApplication().executeOnPooledThread(() -> {
+        for (FormatConsumer consumer : consumers) {
+          consumer.computedFormat(Collections.emptyList(), 0, 0);
+        }
+      });
+    }
+  }
+
+  private static List<VirtualFile> createFiles(int count) {
+    final List<VirtualFile> files = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      files.add(new LightVirtualFile("file" + i + ".dart", ""));
+    }
+    return files;
+  }
+
+  private static void format(@NotNull ScriptedServer server,
+                             @NotNull List<VirtualFile> files,
+                             int maxRequestsInFlight,
+                             @NotNull PairConsumer<VirtualFile, DartAnalysisServerService.FormatResult> consumer) {
+    DartAnalysisServerService.formatFiles(server.myServer, files, 80, maxRequestsInFlight, TIMEOUT, consumer,
+                                          (filePath, error) -> fail("unexpected error for " + filePath + ": " + error.getMessage()));
+  }
+
+  public void testWindowBound() throws Exception {
+    final List<VirtualFile> files = createFiles(10);
+    final ScriptedServer server = new ScriptedServer();
+    // answer only when the window is full or nothing else is going to be sent
+    server.myOnRequest = s -> {
+      if (s.getUnansweredCount() == 3 || s.myRequestedPaths.size() == files.size()) {
+        s.answerAll();
+      }
+    };
+
+    final Set<VirtualFile> formatted = ContainerUtil.newConcurrentSet();
+    format(server, files, 3, (file, result) -> formatted.add(file));
+
+    assertEquals(files.size(), server.myRequestedPaths.size());
+    assertEquals(3, server.myMaxUnanswered);
+    assertEquals(files.size(), formatted.size());
+  }
+
+  public void testTimeoutAndLateResponses() throws Exception {
+    final List<VirtualFile> files = createFiles(5);
+    final ScriptedServer server = new ScriptedServer();
+
+    final List<VirtualFile> formatted = Collections.synchronizedList(new ArrayList<>());
+    final long start = System.currentTimeMillis();
+    format(server, files, 2, (file, result) -> formatted.add(file));
+
+    assertTrue(System.currentTimeMillis() - start < TIMEOUT * 10);
+    // the window is full and nothing is answered, so the rest isn't sent
+    assertEquals(2, server.myRequestedPaths.size());
+
+    server.answerAll().get();
+    assertEmpty(formatted);
+  }
+
+  public void testCancellation() throws Exception {
+    final List<VirtualFile> files = createFiles(5);
+    final ScriptedServer server = new ScriptedServer();
+    final ProgressIndicator indicator = new EmptyProgressIndicator();
+    server.myOnRequest = s -> indicator.cancel();
+
+    final List<VirtualFile> formatted = Collections.synchronizedList(new ArrayList<>());
+    try {
+      ProgressManager.getInstance().runProcess(() -> format(server, files, 2, (file, result) -> formatted.add(file)), indicator);
+      fail("ProcessCanceledException expected");
+    }
+    catch (ProcessCanceledException ignored) {
+    }
+
+    assertEquals(1, server.myRequestedPaths.size());
+    server.answerAll().get();
+    assertEmpty(formatted);
+  }
+
+  public void testErrors() throws Exception {
+    final List<VirtualFile> files = createFiles(3);
+    final ScriptedServer server = new ScriptedServer();
+    server.myOnRequest = s -> {
+      for (FormatConsumer consumer : s.takeUnanswered()) {
+        consumer.onError(new RequestError(RequestErrorCode.FORMAT_WITH_ERRORS, "error", null));
+      }
+    };
+
+    final List<String> failedPaths = Collections.synchronizedList(new ArrayList<>());
+    DartAnalysisServerService.formatFiles(server.myServer, files, 80, 2, TIMEOUT,
+                                          (file, result) -> fail("unexpected result for " + file),
+                                          (filePath, error) -> failedPaths.add(filePath));
+
+    assertEquals(server.myRequestedPaths, failedPaths);
+    assertEquals(files.size(), failedPaths.size());
+  }
+}
@@ -0,0 +1,50 @@
+package com.jetbrains.lang.dart.coverage;
+
+import com.google.gson.JsonSyntaxException;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Map;
+
+import static com.jetbrains.lang.dart.coverage.DartCoverageData.NO_CODE;
+
+public class DartCoverageDataTest extends TestCase {
+
+  private static Map<String, int[]> read(final String json) throws IOException {
+    final DartCoverageData data = DartCoverageData.read(new StringReader(json));
+    assertNotNull(data);
+    return data.getSourceToLineHits();
+  }
+
+  public void testEmptyFile() throws IOException {
+    assertNull(DartCoverageData.read(new StringReader("")));
+  }
+
+  public void testHitsMergedBySource() throws IOException {
+    final Map<String, int[]> hits =
+      read("{\"type\":\"CodeCoverage\",\"coverage\":[" +
+           "{\"source\":\"file:///a.dart\",\"script\":{\"type\":\"@Script\"},\"hits\":[2,1,4,0]}," +
+           "{\"hits\":[4,3,1,0],\"source\":\"file:///a.dart\"}," +
+           "{\"source\":\"file:///b.dart\",\"hits\":[]}," +
+           "{\"hits\":[1,1]}]}");
+
+    assertEquals(2, hits.size());
+    assertOrderedEquals(hits.get("file:///a.dart"), NO_CODE, 0, 1, NO_CODE, 3);
+    assertEquals(0, hits.get("file:///b.dart").length);
+  }
+
+  public void testInvalidHits() throws IOException {
+    try {
+      read("{\"coverage\":[{\"source\":\"file:///a.dart\",\"hits\":[\"1-2\",1]}]}");
+      fail();
+    }
+    catch (JsonSyntaxException ignored) {
+    }
+  }
+
+  private static void assertOrderedEquals(final int[] actual, final int... expected) {
+    assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+  }
+}
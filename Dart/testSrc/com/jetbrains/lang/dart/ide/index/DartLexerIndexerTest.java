@@ -0,0 +1,166 @@
+package com.jetbrains.lang.dart.ide.index;
+
+import com.intellij.openapi.util.Comparing;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.CharsetToolkit;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiFileFactory;
+import com.jetbrains.lang.dart.DartCodeInsightFixtureTestCase;
+import com.jetbrains.lang.dart.DartFileType;
+import com.jetbrains.lang.dart.util.DartTestUtils;
+import gnu.trove.THashSet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class DartLexerIndexerTest extends DartCodeInsightFixtureTestCase {
+  public void testDirectives() {
+    doTest("library foo.bar;\n" +
+           "import 'dart:async' deferred as async show Future, Stream hide Timer;\n" +
+           "import \"package:a/a.dart\" as a;\n" +
+           "export r'b.dart' hide B show C;\n" +
+           "part 'part1.dart';\n" +
+           "part '''part2.dart''';\n");
+  }
+
+  public void testPartOf() {
+    doTest("part of foo . /* comment */ bar;\n" +
+           "class A {}");
+  }
+
+  public void testTopLevelDeclarations() {
+    doTest("@deprecated\n" +
+           "const int a = 1, b = const [1, 2], c;\n" +
+           "final d = new Map<String, List<int>>();\n" +
+           "var e = (x) { return x > 1 ? '${x}' : \"$x\"; }, f;\n" +
+           "List<int> get g => [];\n" +
+           "set g(value) {}\n" +
+           "get h => 1;\n" +
+           "external void i();\n" +
+           "T j<T>(T t) async { yield* k; }\n" +
+           "typedef int F(int a);\n" +
+           "typedef G<T> = void Function(T t);\n" +
+           "enum Color { red, green, blue, }\n" +
+           "abstract class A<T extends Comparable<T>> extends B with C implements D, E {}\n" +
+           "class M = A with C;\n");
+  }
+
+  public void testClassMembers() {
+    doTest("class A {\n" +
+           "  static const int x = 1, y = 2;\n" +
+           "  final z;\n" +
+           "  var w = {'a': 1};\n" +
+           "  A(this.z) : w = null, super();\n" +
+           "  A.named() : this(1);\n" +
+           "  factory A.create() => new A(1);\n" +
+           "  factory A() = B<int>.create;\n" +
+           "  const A.constant(int p) : z = p;\n" +
+           "  int get length => 0;\n" +
+           "  set length(int value) {}\n" +
+           "  bool operator ==(other) => false;\n" +
+           "  operator [](int i) => null;\n" +
+           "  void operator []=(int i, value) {}\n" +
+           "  int operator(int a) => a;\n" +
+           "  external static void foo();\n" +
+           "  @override\n" +
+           "  String toString() { return 'A{${z}}'; }\n" +
+           "}");
+  }
+
+  public void testFallbackToPsi() {
+    checkFallback("#!/usr/bin/env dart\nmain() {}");
+    checkFallback("part of 'lib.dart';");
+    checkFallback("import 'a.dart' if (dart.library.io) 'b.dart';");
+    checkFallback("class A { void foo( }");
+    checkFallback("main() { print('unclosed); }");
+  }
+
+  /**
+   * All Dart files of the test data (including the mock SDK), and the real SDK libraries if run with -Ddart.sdk,
+   * must be indexed from the lexer exactly as from PSI, unless the lexer indexer falls back to PSI.
+   */
+  public void testAllTestData() throws IOException {
+    final List<File> files = new ArrayList<>();
+    collectDartFiles(new File(DartTestUtils.BASE_TEST_DATA_PATH), files);
+    final String realSdkHome = System.getProperty("dart.sdk");
+    if (realSdkHome != null) {
+      collectDartFiles(new File(realSdkHome, "lib"), files);
+    }
+
+    int indexedWithoutPsi = 0;
+    final List<String> differences = new ArrayList<>();
+    for (File file : files) {
+      final String text = StringUtil.convertLineSeparators(FileUtil.loadFile(file, CharsetToolkit.UTF8));
+      final DartFileIndexData actual = DartLexerIndexer.indexFile(text, file.getName());
+      if (actual == null) continue;
+
+      indexedWithoutPsi++;
+      final PsiFile psiFile = PsiFileFactory.getInstance(getProject()).createFileFromText(file.getName(), DartFileType.INSTANCE, text);
+      final String difference = compare(DartIndexUtil.indexFileRoots(psiFile), actual);
+      if (difference != null) {
+        differences.add(file.getPath() + ": " + difference);
+      }
+    }
+
+    assertTrue("No file indexed without PSI out of " + files.size(), indexedWithoutPsi > 0);
+    assertEmpty(StringUtil.join(differences, "\n"), differences);
+  }
+
+  private static void collectDartFiles(@NotNull final File dir, @NotNull final List<File> result) {
+    final File[] children = dir.listFiles();
+    if (children == null) return;
+
+    for (File child : children) {
+      if (child.isDirectory()) {
+        collectDartFiles(child, result);
+      }
+      else if (child.getName().endsWith("." + DartFileType.DEFAULT_EXTENSION)) {
+        result.add(child);
+      }
+    }
+  }
+
+  private void checkFallback(@NotNull final String text) {
+    assertNull(text, DartLexerIndexer.indexFile(text, "file.dart"));
+  }
+
+  private void doTest(@NotNull final String text) {
+    final PsiFile psiFile = myFixture.configureByText(DartFileType.INSTANCE, text);
+    final DartFileIndexData expected = DartIndexUtil.indexFileRoots(psiFile);
+    final DartFileIndexData actual = DartLexerIndexer.indexFile(text, psiFile.getName());
+
+    assertNotNull("File must be indexed without PSI", actual);
+    assertNull(compare(expected, actual));
+  }
+
+  @Nullable
+  private static String compare(@NotNull final DartFileIndexData expected, @NotNull final DartFileIndexData actual) {
+    if (!Comparing.equal(expected.getLibraryName(), actual.getLibraryName())) {
+      return "library name " + expected.getLibraryName() + " != " + actual.getLibraryName();
+    }
+    if (expected.isPart() != actual.isPart()) {
+      return "isPart " + expected.isPart() + " != " + actual.isPart();
+    }
+    if (!new THashSet<>(expected.getClassNames()).equals(new THashSet<>(actual.getClassNames()))) {
+      return "class names " + expected.getClassNames() + " != " + actual.getClassNames();
+    }
+    if (!new THashSet<>(expected.getSymbols()).equals(new THashSet<>(actual.getSymbols()))) {
+      return "symbols " + expected.getSymbols() + " != " + actual.getSymbols();
+    }
+    if (!expected.getComponentInfoMap().equals(actual.getComponentInfoMap())) {
+      return "components " + expected.getComponentInfoMap() + " != " + actual.getComponentInfoMap();
+    }
+    if (!expected.getImportAndExportInfos().equals(actual.getImportAndExportInfos())) {
+      return "imports and exports " + expected.getImportAndExportInfos() + " != " + actual.getImportAndExportInfos();
+    }
+    if (!expected.getPartUris().equals(actual.getPartUris())) {
+      return "parts " + expected.getPartUris() + " != " + actual.getPartUris();
+    }
+    return null;
+  }
+}
@@ -0,0 +1,161 @@
+package com.jetbrains.lang.dart.ide.runner.server.vmService;
+
+import com.google.gson.JsonObject;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.Ref;
+import com.intellij.testFramework.LightPlatformTestCase;
+import com.intellij.util.concurrency.Semaphore;
+import gnu.trove.TObjectIntHashMap;
+import org.dartlang.vm.service.VmService;
+import org.dartlang.vm.service.consumer.EvaluateConsumer;
+import org.dartlang.vm.service.consumer.GetObjectConsumer;
+import org.dartlang.vm.service.element.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.function.Consumer;
+
+/**
+ * Checks which {@link VmServiceWrapper} calls reach the VM and which are served from its object cache.
+ */
+public class VmServiceWrapperObjectCacheTest extends LightPlatformTestCase {
+  private static final String ISOLATE_ID = "isolates/1";
+
+  private static class CountingVmService extends VmService {
+    private final TObjectIntHashMap<String> myRequestCounts = new TObjectIntHashMap<>();
+
+    private synchronized void countRequest(@NotNull final String key) {
+      myRequestCounts.put(key, myRequestCounts.get(key) + 1);
+    }
+
+    private synchronized int getRequestCount(@NotNull final String key) {
+      return myRequestCounts.get(key);
+    }
+
+    @Override
+    public void getObject(String isolateId, String objectId, GetObjectConsumer consumer) {
+      countRequest(objectId);
+      consumer.received(new Instance(createJson("Instance", objectId)));
+    }
+
+    @Override
+    public void getObject(String isolateId, String objectId, Integer offset, Integer count, GetObjectConsumer consumer) {
+      countRequest(VmObjectCache.getCollectionObjectKey(objectId, offset, count));
+      consumer.received(new Instance(createJson("Instance", objectId)));
+    }
+
+    @Override
+    public void evaluate(String isolateId, String targetId, String expression, EvaluateConsumer consumer) {
+      countRequest(targetId + "." + expression);
+      consumer.received(new InstanceRef(createJson("@Instance", "objects/string")));
+    }
+  }
+
+  private CountingVmService myVmService;
+  private VmServiceWrapper myWrapper;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myVmService = new CountingVmService();
+    myWrapper = new VmServiceWrapper(myVmService);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      Disposer.dispose(myWrapper);
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  @NotNull
+  private static JsonObject createJson(@NotNull final String type, @NotNull final String id) {
+    final JsonObject json = new JsonObject();
+    json.addProperty("type", type);
+    json.addProperty("id", id);
+    return json;
+  }
+
+  @NotNull
+  private static InstanceRef createListRef(@NotNull final String id, final int length) {
+    final JsonObject json = createJson("@Instance", id);
+    json.addProperty("kind", "List");
+    json.addProperty("length", length);
+    return new InstanceRef(json);
+  }
+
+  @NotNull
+  private static Obj receiveObject(@NotNull final Consumer<GetObjectConsumer> request) {
+    final Ref<Obj> result = Ref.create();
+    final Semaphore semaphore = new Semaphore();
+    semaphore.down();
+    request.accept(new GetObjectConsumer() {
+      @Override
+      public void received(Obj response) {
+        result.set(response);
+        semaphore.up();
+      }
+
+      @Override
+      public void received(Sentinel response) {
+        semaphore.up();
+      }
+
+      @Override
+      public void onError(RPCError error) {
+        semaphore.up();
+      }
+    });
+    assertTrue("no response", semaphore.waitFor(3000));
+    assertNotNull(result.get());
+    return result.get();
+  }
+
+  private void computePresentation(@NotNull final String objectId) {
+    final Semaphore semaphore = new Semaphore();
+    semaphore.down();
+    myWrapper.evaluateInTargetContext(ISOLATE_ID, objectId, "toString()", new VmServiceConsumers.EvaluateConsumerWrapper() {
+      @Override
+      public void received(InstanceRef response) {
+        semaphore.up();
+      }
+
+      @Override
+      public void noGoodResult() {
+        semaphore.up();
+      }
+    });
+    assertTrue("no response", semaphore.waitFor(3000));
+  }
+
+  public void testExpandAfterSiblingPresentations() throws Exception {
+    // frame children are computed: a plain object is loaded and the first page of a list is prefetched
+    receiveObject(consumer -> myWrapper.getObject(ISOLATE_ID, "objects/1", consumer));
+    final InstanceRef list = createListRef("objects/2", 3);
+    myWrapper.prefetchCollectionObjects(ISOLATE_ID, Collections.singletonList(list));
+    receiveObject(consumer -> myWrapper.getCollectionObject(ISOLATE_ID, list.getId(), 0, 3, consumer));
+
+    // presentations of the sibling values
+    computePresentation("objects/3");
+    computePresentation("objects/4");
+    assertEquals(1, myVmService.getRequestCount("objects/3.toString()"));
+
+    // the nodes are expanded
+    assertEquals("objects/1", receiveObject(consumer -> myWrapper.getObject(ISOLATE_ID, "objects/1", consumer)).getId());
+    receiveObject(consumer -> myWrapper.getCollectionObject(ISOLATE_ID, list.getId(), 0, 3, consumer));
+
+    assertEquals(1, myVmService.getRequestCount("objects/1"));
+    assertEquals(1, myVmService.getRequestCount(VmObjectCache.getCollectionObjectKey(list.getId(), 0, 3)));
+  }
+
+  public void testResumeDropsCachedObjects() throws Exception {
+    receiveObject(consumer -> myWrapper.getObject(ISOLATE_ID, "objects/1", consumer));
+    myWrapper.isolateResumed(ISOLATE_ID);
+    receiveObject(consumer -> myWrapper.getObject(ISOLATE_ID, "objects/1", consumer));
+
+    assertEquals(2, myVmService.getRequestCount("objects/1"));
+  }
+}
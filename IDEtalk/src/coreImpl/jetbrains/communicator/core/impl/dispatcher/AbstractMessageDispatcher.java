@@ -27,16 +27,25 @@ import jetbrains.communicator.core.users.User;
 import jetbrains.communicator.core.users.UserEvent;
 import jetbrains.communicator.util.XMLUtil;
 import org.apache.log4j.Logger;
+import org.jetbrains.annotations.NonNls;
 import org.picocontainer.Disposable;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.*;
 
 /**
+ * Pending messages are persisted as an XML snapshot plus a journal of changes made after it.
+ * Changes are queued under <code>myUser2MessagesLock</code> and written after the lock is released, one write for all queued changes;
+ * the snapshot is rewritten when the journal grows long.
+ *
  * @author Kir
  */
 public abstract class AbstractMessageDispatcher implements MessageDispatcher, Disposable {
   private static final Logger LOG = Logger.getLogger(AbstractMessageDispatcher.class);
+  @NonNls private static final String JOURNAL_SUFFIX = ".journal";
+  @NonNls private static final String TMP_SUFFIX = ".tmp";
+  private static final int MAX_JOURNAL_RECORDS = 500;
   private XStream myXStream;
 
   private final File myDataDir;
@@ -44,6 +53,11 @@ public abstract class AbstractMessageDispatcher implements MessageDispatcher, Di
 
   private final Object myUser2MessagesLock = new Object();
   private final Map<User,List<Message>> myUser2Messages = new HashMap<>();
+  private final List<MessagesJournal.Record> myUnsavedRecords = new ArrayList<>();
+
+  private final Object myJournalLock = new Object();
+  private MessagesJournal myJournal;
+  private long myGeneration;
   private final EventBroadcaster myEventBroadcaster;
   private boolean myDispatching;
 
@@ -56,6 +70,12 @@ public abstract class AbstractMessageDispatcher implements MessageDispatcher, Di
 
   public void dispose() {
     myEventListener.dispose();
+    synchronized (myJournalLock) {
+      save();
+      if (isPersistent() && getJournal().getRecordCount() > 0) {
+        writeSnapshot();
+      }
+    }
     //noinspection HardCodedStringLiteral
     LOG.debug("Disposed.");
   }
@@ -74,13 +94,19 @@ public abstract class AbstractMessageDispatcher implements MessageDispatcher, Di
       synchronized(myUser2MessagesLock) {
         List<Message> userMessages = getMessages(user);
         if (result) {
-          userMessages.remove(message);
+          int index = userMessages.indexOf(message);
+          if (index >= 0) {
+            userMessages.remove(index);
+            logChange(MessagesJournal.Record.remove(user, index));
+          }
           if (userMessages.size() == 0) {
             myUser2Messages.remove(user);
+            logChange(MessagesJournal.Record.removeUser(user));
           }
         }
         else if (!userMessages.contains(message) ){
           userMessages.add(message);
+          logChange(MessagesJournal.Record.add(user, message));
         }
       }
 
@@ -145,24 +171,27 @@ public abstract class AbstractMessageDispatcher implements MessageDispatcher, Di
           LOG.debug("Added pending message " + message + "\nfor user " + user);
         }
         userMessages.add(message);
-        save();
+        logChange(MessagesJournal.Record.add(user, message));
       }
     }
+    save();
   }
 
   protected void removePendingMessage(User user, int messageIndex) {
     synchronized(myUser2MessagesLock) {
       List<Message> userMessages = getMessages(user);
       userMessages.remove(messageIndex);
-      save();
+      logChange(MessagesJournal.Record.remove(user, messageIndex));
     }
+    save();
   }
 
   protected void clearAll() {
     synchronized (myUser2MessagesLock) {
       myUser2Messages.clear();
-      save();
+      logChange(MessagesJournal.Record.clear());
     }
+    save();
   }
 
   private List<Message> getMessages(User user) {
@@ -177,10 +206,28 @@ public abstract class AbstractMessageDispatcher implements MessageDispatcher, Di
   }
 
   protected final void load() {
-    synchronized (myUser2MessagesLock) {
+    synchronized (myJournalLock) {
       Object pendingEventsStorable = XMLUtil.fromXml(getXStream(), getFileName(), false);
-      if (pendingEventsStorable instanceof MessagesStorable) {
-        loadFromStorableMessages((MessagesStorable) pendingEventsStorable);
+      if (pendingEventsStorable == null) {
+        // the snapshot may have been replaced by its temporary copy when IDEA stopped
+        pendingEventsStorable = XMLUtil.fromXml(getXStream(), getFileName() + TMP_SUFFIX, false);
+      }
+      myGeneration = pendingEventsStorable instanceof MessagesStorable ? ((MessagesStorable)pendingEventsStorable).getGeneration() : 0;
+      List<MessagesJournal.Record> records = getJournal().read(myGeneration);
+
+      synchronized (myUser2MessagesLock) {
+        if (pendingEventsStorable instanceof MessagesStorable) {
+          loadFromStorableMessages((MessagesStorable) pendingEventsStorable);
+        }
+        for (MessagesJournal.Record record : records) {
+          record.apply(myUser2Messages);
+        }
+        myUnsavedRecords.clear();
+      }
+
+      // start a fresh journal, a damaged tail must not be followed by new records
+      if (isPersistent() && getJournal().hasRecords()) {
+        writeSnapshot();
       }
     }
   }
@@ -197,23 +244,92 @@ public abstract class AbstractMessageDispatcher implements MessageDispatcher, Di
   private void removeUser(User user) {
     synchronized (myUser2MessagesLock) {
       myUser2Messages.remove(user);
-      save();
+      logChange(MessagesJournal.Record.removeUser(user));
     }
+    save();
   }
 
+  private void logChange(MessagesJournal.Record record) {
+    synchronized (myUser2MessagesLock) {
+      myUnsavedRecords.add(record);
+    }
+  }
+
+  /**
+   * Appends changes made since the last save to the journal. Threads which queued their changes while another thread was writing
+   * wait for it and then write all of them at once.
+   */
   @SuppressWarnings({"HardCodedStringLiteral"})
   protected void save() {
-    if (myDataDir == null || !myDataDir.exists()) return;
+    synchronized (myJournalLock) {
+      List<MessagesJournal.Record> records;
+      synchronized (myUser2MessagesLock) {
+        if (myUnsavedRecords.isEmpty()) return;
+        records = new ArrayList<>(myUnsavedRecords);
+        myUnsavedRecords.clear();
+      }
+      if (!isPersistent()) return;
 
-    LOG.debug("Save start");
-    synchronized(myUser2MessagesLock) {
-      XMLUtil.toXml(getXStream(), getFileName(), createStorableMessages());
+      LOG.debug("Save start");
+      try {
+        getJournal().append(records);
+        if (getJournal().getRecordCount() > MAX_JOURNAL_RECORDS) {
+          writeSnapshot();
+        }
+      }
+      catch (IOException e) {
+        LOG.info("Unable to write journal " + getJournal().getFile(), e);
+        writeSnapshot();
+      }
+      LOG.debug("Save finish");
+    }
+  }
+
+  /** Rewrites the snapshot with all pending messages and starts an empty journal. */
+  @SuppressWarnings({"HardCodedStringLiteral"})
+  private void writeSnapshot() {
+    synchronized (myJournalLock) {
+      MessagesStorable storable;
+      synchronized (myUser2MessagesLock) {
+        storable = createStorableMessages();
+        myUnsavedRecords.clear();
+      }
+
+      File snapshot = new File(getFileName());
+      File tmp = new File(getFileName() + TMP_SUFFIX);
+      XMLUtil.toXml(getXStream(), tmp.getAbsolutePath(), storable);
+      if (!tmp.renameTo(snapshot) && !(snapshot.delete() && tmp.renameTo(snapshot))) {
+        LOG.info("Unable to rename " + tmp + " to " + snapshot);
+        return;
+      }
+
+      myGeneration = storable.getGeneration();
+      try {
+        getJournal().reset(myGeneration);
+      }
+      catch (IOException e) {
+        LOG.info("Unable to reset journal " + getJournal().getFile(), e);
+      }
     }
-    LOG.debug("Save finish");
   }
 
   protected MessagesStorable createStorableMessages() {
-    return new MessagesStorable(myUser2Messages);
+    Map<User, List<Message>> user2Messages = new HashMap<>();
+    for (Map.Entry<User, List<Message>> entry : myUser2Messages.entrySet()) {
+      user2Messages.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+    }
+    return new MessagesStorable(user2Messages, myGeneration + 1);
+  }
+
+  private boolean isPersistent() {
+    return myDataDir != null && myDataDir.exists();
+  }
+
+  MessagesJournal getJournal() {
+    if (myJournal == null) {
+      myJournal = new MessagesJournal(new File(getFileName() + JOURNAL_SUFFIX), getXStream());
+    }
+    return myJournal;
   }
 
   @SuppressWarnings({"HardCodedStringLiteral"})
@@ -222,6 +338,7 @@ public abstract class AbstractMessageDispatcher implements MessageDispatcher, Di
       myXStream = XMLUtil.createXStream();
       myXStream.alias("user", UserImpl.class);
       myXStream.alias("pendingEvents", MessagesStorable.class);
+      myXStream.alias("pendingEventsRecord", MessagesJournal.Record.class);
     }
 
     return myXStream;
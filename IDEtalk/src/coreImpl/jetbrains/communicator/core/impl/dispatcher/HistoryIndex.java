@@ -0,0 +1,67 @@
+/*
+ * Copyright 2000-2006 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.communicator.core.impl.dispatcher;
+
+import jetbrains.communicator.core.users.User;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Days of the message history (as day file names without extension) which have messages of each user,
+ * so that history of a user is read only from the day files it is in.
+ * A user may be indexed for a day without its messages, but never the opposite.
+ */
+class HistoryIndex {
+  private final Map<String, TreeSet<String>> myUserDays = new HashMap<>();
+  // day files whose users are in the index, files not listed here were written before the index
+  private final Set<String> myIndexedDays = new HashSet<>();
+
+  public boolean isIndexed(String day) {
+    return myIndexedDays.contains(day);
+  }
+
+  public void addDay(String day, Iterable<? extends User> users) {
+    for (User user : users) {
+      addUserDay(user, day);
+    }
+    myIndexedDays.add(day);
+  }
+
+  /** @return true if the index has changed */
+  public boolean addUserDay(User user, String day) {
+    TreeSet<String> days = myUserDays.get(getKey(user));
+    if (days == null) {
+      days = new TreeSet<>();
+      myUserDays.put(getKey(user), days);
+    }
+    return days.add(day) | myIndexedDays.add(day);
+  }
+
+  public SortedSet<String> getDays(User user, @Nullable String since) {
+    TreeSet<String> days = myUserDays.get(getKey(user));
+    if (days == null) return Collections.emptySortedSet();
+    return since == null ? days : days.tailSet(since, true);
+  }
+
+  private static String getKey(User user) {
+    return user.getTransportCode() + ':' + user.getName();
+  }
+
+  public String toString() {
+    return myUserDays.toString();
+  }
+}
@@ -44,8 +44,16 @@ class MessageHistory {
   public static final long SAVE_TIMEOUT = 300;
   @NonNls
   private static final String HISTORY = "history";
+  @NonNls
+  private static final String INDEX_FILE = "historyIndex.xml";
 
   private final DayHistory myHistory = new DayHistory();
+  // days which got new messages since the last save, other day files are up to date
+  private final Set<Date> myUnsavedDays = new HashSet<>();
+  // days whose files are read into myHistory
+  private final Set<String> myLoadedDays = new HashSet<>();
+  private HistoryIndex myIndex;
+  private boolean myIndexChanged;
   @NonNls
   private final XStream myXStream;
   private final UserModel myUserModel;
@@ -64,8 +72,6 @@ class MessageHistory {
 
     myXStream = XMLUtil.createXStream();
     setupXStream();
-
-    loadHistorySince(new Date());
   }
 
   public synchronized void dispose() {
@@ -75,25 +81,43 @@ class MessageHistory {
     }
 
     myHistory.clear();
+    myUnsavedDays.clear();
+    myLoadedDays.clear();
+    myIndex = null;
   }
 
   private void setupXStream() {
     myXStream.alias("user", UserImpl.class);
     myXStream.alias("dayHistory", DayHistory.class);
     myXStream.aliasField("historyEntries", DayHistory.class, "myData");
+    myXStream.alias("historyIndex", HistoryIndex.class);
+    myXStream.aliasField("userDays", HistoryIndex.class, "myUserDays");
+    myXStream.aliasField("indexedDays", HistoryIndex.class, "myIndexedDays");
 
     myXStream.registerConverter(new UserConverter(myUserModel));
   }
 
   public synchronized void addMessage(User user, LocalMessage message) {
+    String day = DATE_FORMAT.format(message.getWhen());
+    // the day file is rewritten on save, so it must have all its messages
+    if (loadDay(day)) {
+      myHistory.resort();
+    }
     myHistory.addMessage(user, message);
+    myIndexChanged |= getIndex().addUserDay(user, day);
+    myUnsavedDays.add(TimeUtil.getDay(message.getWhen()));
     triggerSave();
   }
 
   public synchronized void clear() {
     myHistory.clear();
+    myUnsavedDays.clear();
+    myLoadedDays.clear();
+    myIndex = null;
+    myIndexChanged = false;
 
     deleteAllHistoryFiles();
+    new File(myFacade.getCacheDir(), INDEX_FILE).delete();
   }
 
   private void deleteAllHistoryFiles() {
@@ -111,7 +135,7 @@ class MessageHistory {
   }
 
   public synchronized LocalMessage[] getHistory(User user, @Nullable Date since) {
-    loadHistorySince(since);
+    loadHistory(user, since);
 
     List<LocalMessage> list = filterHistoryByDate(user, since);
     return list.toArray(new LocalMessage[list.size()]);
@@ -131,48 +155,75 @@ class MessageHistory {
     return list;
   }
 
-  private void loadHistorySince(@Nullable Date since) {
-    if (since != null) {
-      since = TimeUtil.getDay(since);
+  private void loadHistory(User user, @Nullable Date since) {
+    boolean loaded = false;
+    for (String day : getIndex().getDays(user, since == null ? null : DATE_FORMAT.format(since))) {
+      loaded |= loadDay(day);
     }
 
-    if (!myHistory.hasHistorySince(since)) {
-      if (since == null) {
-        doLoadHistorySince(new Date(0));
-        myHistory.setHasFullHistory();
-      }
-      else {
-        doLoadHistorySince(since);
-      }
+    if (loaded) {
+      myHistory.resort();
     }
   }
 
-  private void doLoadHistorySince(Date since) {
-    File historyDir = getHistoryDir();
+  private boolean loadDay(String day) {
+    if (!myLoadedDays.add(day) || !getIndex().isIndexed(day)) return false;
+
+    DayHistory dayHistory = readDay(day);
+    if (dayHistory == null) return false;
+
+    dayHistory.copyTo(myHistory);
+    return true;
+  }
+
+  private DayHistory readDay(String day) {
+    return (DayHistory)XMLUtil.fromXml(myXStream, myFacade.getCacheDir(), getFileNameForDay(day), false);
+  }
+
+  private HistoryIndex getIndex() {
+    if (myIndex != null) return myIndex;
+
+    myIndex = (HistoryIndex)XMLUtil.fromXml(myXStream, myFacade.getCacheDir(), INDEX_FILE, false);
+    if (myIndex == null) {
+      myIndex = new HistoryIndex();
+    }
+
+    // index day files written by previous versions, or saved after the index failed to save
+    String[] historyFiles = getHistoryDir().list((dir, name) -> name.endsWith(".xml"));
+    if (historyFiles == null) return myIndex;
 
-    String[] historyFiles = historyDir.list((dir, name) -> name.endsWith(".xml"));
+    for (String historyFile : historyFiles) {
+      String day = historyFile.substring(0, historyFile.length() - ".xml".length());
+      if (myIndex.isIndexed(day)) continue;
 
-    Arrays.sort(historyFiles);
-    for (int i = historyFiles.length - 1; i >= 0; i--) {
-      String historyFile = historyFiles[i];
       try {
-        Date date = DATE_FORMAT.parse(historyFile);
-        if (!date.before(since) && !myHistory.hasHistorySince(date)) {
-          DayHistory dayHistory = (DayHistory)XMLUtil.fromXml(myXStream, myFacade.getCacheDir(), getFileNameForDate(date), false);
-          if (dayHistory != null) {
-            dayHistory.copyTo(myHistory);
-          }
-        }
+        DATE_FORMAT.parse(day);
       }
       catch (ParseException e) {
         // ignore file of wrong format
+        continue;
       }
       catch (NumberFormatException e) {
         // ignore file of wrong format
+        continue;
       }
+
+      DayHistory dayHistory = readDay(day);
+      if (dayHistory != null) {
+        myIndex.addDay(day, dayHistory.keySet());
+        myIndexChanged = true;
+      }
+    }
+
+    if (myIndexChanged) {
+      saveIndex();
     }
+    return myIndex;
+  }
 
-    myHistory.resort();
+  private void saveIndex() {
+    XMLUtil.toXml(myXStream, myFacade.getCacheDir(), INDEX_FILE, myIndex);
+    myIndexChanged = false;
   }
 
   private void triggerSave() {
@@ -193,36 +244,43 @@ class MessageHistory {
 
   private synchronized void saveHistory() {
     LOG.debug("Start history save");
-    Map<Date, DayHistory> map = getHistory();
+    Map<Date, DayHistory> map = getUnsavedHistory();
+    myUnsavedDays.clear();
+    // the index goes first: if the day files are not saved, it only points to days without messages of the user
+    if (myIndexChanged) {
+      saveIndex();
+    }
     for (Date date : map.keySet()) {
       DayHistory dayHistory = map.get(date);
       try {
         XMLUtil.toXml(myXStream, myFacade.getCacheDir(), getFileNameForDate(date), dayHistory);
       } catch (RuntimeException e) {
         LOG.error("Unable to save dayHistory for " + date + ": " + dayHistory, e);
+        myUnsavedDays.add(date);
       }
     }
 
     LOG.debug("Done history save");
   }
 
-  private synchronized Map<Date, DayHistory> getHistory() {
+  private synchronized Map<Date, DayHistory> getUnsavedHistory() {
     Map<Date, DayHistory> result = new HashMap<>();
+    if (myUnsavedDays.isEmpty()) return result;
 
     for (User user : myHistory.keySet()) {
       List<LocalMessage> messages = myHistory.get(user);
       for (LocalMessage message : messages) {
-        DayHistory dayHistory = getDayHistoryFor(message, result);
-
-        dayHistory.addMessage(user, message);
+        Date day = TimeUtil.getDay(message.getWhen());
+        if (myUnsavedDays.contains(day)) {
+          getDayHistoryFor(day, result).addMessage(user, message);
+        }
       }
     }
 
     return result;
   }
 
-  private DayHistory getDayHistoryFor(LocalMessage message, Map<Date, DayHistory> result) {
-    Date day = TimeUtil.getDay(message.getWhen());
+  private static DayHistory getDayHistoryFor(Date day, Map<Date, DayHistory> result) {
     DayHistory dayHistory = result.get(day);
     if (dayHistory == null) {
       dayHistory = new DayHistory();
@@ -232,9 +290,14 @@ class MessageHistory {
   }
 
   @NonNls
-  private String getFileNameForDate(Date date) {
+  private static String getFileNameForDate(Date date) {
+    return getFileNameForDay(DATE_FORMAT.format(date));
+  }
+
+  @NonNls
+  private static String getFileNameForDay(String day) {
     //noinspection HardCodedStringLiteral
-    return HISTORY + '/' + DATE_FORMAT.format(date) + ".xml";
+    return HISTORY + '/' + day + ".xml";
   }
 
   public boolean isEmpty() {
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2000-2006 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jetbrains.communicator.core.impl.dispatcher;
+
+import com.intellij.openapi.vfs.CharsetToolkit;
+import com.thoughtworks.xstream.XStream;
+import jetbrains.communicator.core.dispatcher.Message;
+import jetbrains.communicator.core.users.User;
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only log of changes to pending messages made after the snapshot of {@link MessagesStorable}.
+ * The journal starts with the generation of its snapshot, so a journal left over from an older snapshot is ignored.
+ * Each record is its XML form prefixed with the length, replay stops at a record cut off by a crash.
+ */
+class MessagesJournal {
+  private static final Logger LOG = Logger.getLogger(MessagesJournal.class);
+  static final int HEADER_SIZE = 8;
+
+  private final File myFile;
+  private final XStream myXStream;
+  private int myRecordCount;
+
+  MessagesJournal(File file, XStream xStream) {
+    myFile = file;
+    myXStream = xStream;
+  }
+
+  File getFile() {
+    return myFile;
+  }
+
+  int getRecordCount() {
+    return myRecordCount;
+  }
+
+  /** returns true if the journal holds anything besides the header written by {@link #reset} */
+  boolean hasRecords() {
+    return myFile.length() != HEADER_SIZE;
+  }
+
+  List<Record> read(long generation) {
+    List<Record> result = new ArrayList<>();
+    myRecordCount = 0;
+    if (!myFile.exists()) return result;
+
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(myFile)))) {
+      if (input.readLong() != generation) return result;
+
+      long available = myFile.length() - HEADER_SIZE;
+      while (available >= 4) {
+        int length = input.readInt();
+        available -= 4;
+        if (length <= 0 || length > available) break;
+
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        available -= length;
+        result.add((Record)myXStream.fromXML(new String(bytes, CharsetToolkit.UTF8_CHARSET)));
+      }
+    }
+    catch (EOFException ignored) {
+    }
+    catch (Exception e) {
+      //noinspection HardCodedStringLiteral
+      LOG.info("Journal " + myFile + " is damaged, " + result.size() + " records restored", e);
+    }
+    myRecordCount = result.size();
+    return result;
+  }
+
+  void append(List<Record> records) throws IOException {
+    try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(myFile, true)))) {
+      for (Record record : records) {
+        byte[] bytes = myXStream.toXML(record).getBytes(CharsetToolkit.UTF8_CHARSET);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+      }
+    }
+    myRecordCount += records.size();
+  }
+
+  void reset(long generation) throws IOException {
+    try (DataOutputStream output = new DataOutputStream(new FileOutputStream(myFile))) {
+      output.writeLong(generation);
+    }
+    myRecordCount = 0;
+  }
+
+  static class Record {
+    enum Kind {ADD, REMOVE, REMOVE_USER, CLEAR}
+
+    private final Kind myKind;
+    private final User myUser;
+    private final Message myMessage;
+    private final int myIndex;
+
+    private Record(Kind kind, User user, Message message, int index) {
+      myKind = kind;
+      myUser = user;
+      myMessage = message;
+      myIndex = index;
+    }
+
+    static Record add(User user, Message message) {
+      return new Record(Kind.ADD, user, message, -1);
+    }
+
+    static Record remove(User user, int index) {
+      return new Record(Kind.REMOVE, user, null, index);
+    }
+
+    static Record removeUser(User user) {
+      return new Record(Kind.REMOVE_USER, user, null, -1);
+    }
+
+    static Record clear() {
+      return new Record(Kind.CLEAR, null, null, -1);
+    }
+
+    void apply(Map<User, List<Message>> user2Messages) {
+      switch (myKind) {
+        case ADD:
+          List<Message> messages = user2Messages.get(myUser);
+          if (messages == null) {
+            messages = new ArrayList<>(5);
+            user2Messages.put(myUser, messages);
+          }
+          messages.add(myMessage);
+          break;
+        case REMOVE:
+          messages = user2Messages.get(myUser);
+          if (messages != null && myIndex < messages.size()) {
+            messages.remove(myIndex);
+          }
+          break;
+        case REMOVE_USER:
+          user2Messages.remove(myUser);
+          break;
+        case CLEAR:
+          user2Messages.clear();
+          break;
+      }
+    }
+  }
+}
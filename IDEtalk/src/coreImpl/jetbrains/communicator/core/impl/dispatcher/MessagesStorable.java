@@ -26,12 +26,23 @@ import java.util.Map;
  */
 public class MessagesStorable {
   private final Map<User, List<Message>> myUser2Messages;
+  private final long myGeneration;
 
   public MessagesStorable(Map<User,List<Message>> user2Messages) {
+    this(user2Messages, 0);
+  }
+
+  public MessagesStorable(Map<User,List<Message>> user2Messages, long generation) {
     myUser2Messages = user2Messages;
+    myGeneration = generation;
   }
 
   public Map<User,List<Message>> getUser2Messages() {
     return myUser2Messages;
   }
+
+  /** snapshots written before the journal was introduced have generation 0 */
+  public long getGeneration() {
+    return myGeneration;
+  }
 }
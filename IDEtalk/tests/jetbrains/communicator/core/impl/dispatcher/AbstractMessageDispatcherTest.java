@@ -23,6 +23,10 @@ import jetbrains.communicator.mock.MockMessage;
 import jetbrains.communicator.mock.MockUser;
 import jetbrains.communicator.p2p.commands.P2PNetworkMessage;
 
+import java.io.File;
+import java.nio.file.Files;
+import java.util.*;
+
 /**
  * @author kir
  */
@@ -146,4 +150,63 @@ public class AbstractMessageDispatcherTest extends BaseTestCase {
     dispatcher.dispose();
   }
 
-}
\ No newline at end of file
+  public void testJournalCutAtAnyPoint() throws Exception {
+    File journal = myDispatcher.getJournal().getFile();
+    List<Long> journalSizes = new ArrayList<>();
+    List<List<String>> states = new ArrayList<>();
+    journalSizes.add(journal.length());
+    states.add(getParameters(myDispatcher));
+
+    for (int i = 0; i < 20; i++) {
+      myDispatcher.addPendingMessage(myUser, new P2PNetworkMessage("foo", "foo2", new String[]{"message" + i}));
+      journalSizes.add(journal.length());
+      states.add(getParameters(myDispatcher));
+
+      if (i % 3 == 2) {
+        myDispatcher.removePendingMessage(myUser, 1);
+        journalSizes.add(journal.length());
+        states.add(getParameters(myDispatcher));
+      }
+    }
+
+    File snapshot = new File(myIdeFacade.getCacheDir(), "test.xml");
+    byte[] snapshotBytes = Files.readAllBytes(snapshot.toPath());
+    byte[] journalBytes = Files.readAllBytes(journal.toPath());
+    Random random = new Random(239);
+    for (int i = 0; i < 30; i++) {
+      int length = random.nextInt(journalBytes.length + 1);
+      Files.write(snapshot.toPath(), snapshotBytes);
+      Files.write(journal.toPath(), Arrays.copyOf(journalBytes, length));
+
+      int expected = 0;
+      while (expected + 1 < journalSizes.size() && journalSizes.get(expected + 1) <= length) expected++;
+
+      AbstractMessageDispatcher dispatcher = createDispatcher();
+      assertEquals("journal cut at " + length, states.get(expected), getParameters(dispatcher));
+      dispatcher.dispose();
+    }
+  }
+
+  public void testJournalOfOlderSnapshotIsIgnored() throws Exception {
+    myDispatcher.addPendingMessage(myUser, new P2PNetworkMessage("foo", "foo2", new String[]{"test"}));
+    File journal = myDispatcher.getJournal().getFile();
+    byte[] journalBytes = Files.readAllBytes(journal.toPath());
+
+    // loading writes a new snapshot which includes the journaled message
+    createDispatcher().dispose();
+    // the old journal is still there if IDEA stopped right after the snapshot was written
+    Files.write(journal.toPath(), journalBytes);
+
+    AbstractMessageDispatcher dispatcher = createDispatcher();
+    assertEquals(Collections.singletonList("test"), getParameters(dispatcher));
+    dispatcher.dispose();
+  }
+
+  private List<String> getParameters(AbstractMessageDispatcher dispatcher) {
+    List<String> result = new ArrayList<>();
+    for (Message message : dispatcher.getPendingMessages(myUser)) {
+      result.add(((P2PNetworkMessage) message).getParameters()[0]);
+    }
+    return result;
+  }
+}
@@ -252,6 +252,36 @@ public class LocalMessageDispatcherTest extends BaseTestCase {
     assertEquals(2, messages.length);
   }
 
+  public void testHistoryIndex() throws Exception {
+    User user2 = UserImpl.create("user2", MockTransport.NAME);
+    myDispatcher.sendNow(myUser, new MockMessage(new Date(), "today"));
+    myDispatcher.sendNow(user2, new MockMessage(yesterday(), "yesterday"));
+
+    Thread.sleep(SAVE_WAIT_TIMEOUT);
+    assertTrue(new File(myIdeFacade.getCacheDir(), "historyIndex.xml").exists());
+
+    LocalMessageDispatcherImpl localMessageDispatcher = createLocalMessageDispatcher();
+    LocalMessage[] messages = localMessageDispatcher.getHistory(user2, null);
+    assertEquals(1, messages.length);
+    assertEquals("yesterday", ((MockMessage) messages[0]).getMessage());
+    assertEquals(1, localMessageDispatcher.getHistory(myUser, null).length);
+  }
+
+  public void testHistoryIndex_DayFilesWithoutIndex() throws Exception {
+    User user2 = UserImpl.create("user2", MockTransport.NAME);
+    myDispatcher.sendNow(myUser, new MockMessage(new Date()));
+    myDispatcher.sendNow(user2, new MockMessage(yesterday()));
+
+    Thread.sleep(SAVE_WAIT_TIMEOUT);
+    // as left by versions without the index
+    assertTrue(new File(myIdeFacade.getCacheDir(), "historyIndex.xml").delete());
+
+    LocalMessageDispatcherImpl localMessageDispatcher = createLocalMessageDispatcher();
+    assertEquals(1, localMessageDispatcher.getHistory(user2, null).length);
+    assertEquals(1, localMessageDispatcher.getHistory(myUser, a_moment_ago()).length);
+    assertTrue(new File(myIdeFacade.getCacheDir(), "historyIndex.xml").exists());
+  }
+
   private Date yesterday() {
     return new Date(System.currentTimeMillis() - 1000 * 3600 * 24);
   }
@@ -15,6 +15,9 @@ import java.util.List;
  */
 public class ErrorProneJavaCompilingTool extends JavaCompilingTool {
   public static final String COMPILER_ID = "error-prone";//duplicates ErrorProneJavaBackendCompiler.COMPILER_ID from IDE part
+  //ErrorProneJavaCompiler creates a new javac task and scanner in each getTask() call, so a single instance is shared by all chunks
+  //to load and instantiate the built-in checkers once per build process
+  private static JavaCompiler ourCompiler;
 
   @NotNull
   @Override
@@ -34,8 +37,17 @@ public class ErrorProneJavaCompilingTool extends JavaCompilingTool {
     if (!SystemInfo.isJavaVersionAtLeast("1.8")) {
       throw new CannotCreateJavaCompilerException("Error-prone compiler requires JDK 1.8 to run");
     }
+    return getOrCreateCompiler();
+  }
+
+  @NotNull
+  private static synchronized JavaCompiler getOrCreateCompiler() throws CannotCreateJavaCompilerException {
+    if (ourCompiler != null) {
+      return ourCompiler;
+    }
     try {
-      return (JavaCompiler)Class.forName("com.google.errorprone.ErrorProneJavaCompiler").newInstance();
+      ourCompiler = (JavaCompiler)Class.forName("com.google.errorprone.ErrorProneJavaCompiler").newInstance();
+      return ourCompiler;
     }
     catch (Exception e) {
       throw new CannotCreateJavaCompilerException(e.getMessage());
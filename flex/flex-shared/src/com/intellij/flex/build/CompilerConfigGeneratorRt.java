@@ -858,7 +858,7 @@ public class CompilerConfigGeneratorRt {
     return FileUtil.toSystemIndependentName(projectDescriptor.dataManager.getDataPaths().getDataStorageRoot().getPath()) + "/tmp";
   }
 
-  private static String getPathToFlexUnitMainClass(final ProjectDescriptor projectDescriptor,
+  public static String getPathToFlexUnitMainClass(final ProjectDescriptor projectDescriptor,
                                                    final BuildConfigurationNature nature,
                                                    final String mainClass) {
     return getPathToFlexUnitTempDirectory(projectDescriptor) + "/" + mainClass + FlexCommonUtils.getFlexUnitLauncherExtension(nature);
@@ -1,9 +1,12 @@
 package com.intellij.flex;
 
+import com.intellij.javascript.flex.css.FlexCssPropertyTableTest;
 import com.intellij.lang.javascript.*;
+import com.intellij.lang.javascript.flex.debug.FlexFdbTranscriptTest;
 import com.intellij.lang.javascript.flexunit.FlexUnitCompletionTest;
 import com.intellij.lang.javascript.flexunit.FlexUnitConfigurationTest;
 import com.intellij.lang.javascript.flexunit.FlexUnitHighlightingTest;
+import com.intellij.lang.javascript.flexunit.FlexUnitLauncherGenerationTest;
 import com.intellij.lang.javascript.generate.ActionScriptGenerateTest;
 import com.intellij.lang.javascript.imports.FlexAutoImportsTest;
 import com.intellij.lang.javascript.imports.FlexOptimizeImportsTest;
@@ -48,6 +51,7 @@ public class FlexTestSuite extends TestCase {
     testSuite.addTestSuite(FlexUnitConfigurationTest.class);
     testSuite.addTestSuite(FlexUnitHighlightingTest.class);
     testSuite.addTestSuite(FlexUnitCompletionTest.class);
+    testSuite.addTestSuite(FlexUnitLauncherGenerationTest.class);
 
     testSuite.addTestSuite(GlobalFlexHighlightingTest.class);
     testSuite.addTestSuite(FlexColorAnnotatorTest.class);
@@ -89,6 +93,8 @@ public class FlexTestSuite extends TestCase {
     testSuite.addTestSuite(FlexCompletionInUmlTextFieldsTest.class);
     testSuite.addTestSuite(ActionScriptInPlaceIntroduceVariableTest.class);
     testSuite.addTestSuite(ActionScriptStatementMoverTest.class);
+    testSuite.addTestSuite(FlexFdbTranscriptTest.class);
+    testSuite.addTestSuite(FlexCssPropertyTableTest.class);
 
     return testSuite;
   }
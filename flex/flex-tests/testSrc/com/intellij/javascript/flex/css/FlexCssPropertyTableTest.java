@@ -0,0 +1,54 @@
+package com.intellij.javascript.flex.css;
+
+import com.intellij.javascript.flex.mxml.schema.FlexSchemaHandler;
+import com.intellij.lang.javascript.flex.FlexModuleType;
+import com.intellij.openapi.module.ModuleType;
+import com.intellij.openapi.vfs.newvfs.impl.VfsRootAccess;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.fixtures.DefaultLightProjectDescriptor;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import static com.intellij.openapi.vfs.VfsUtilCore.convertFromUrl;
+import static com.intellij.openapi.vfs.VfsUtilCore.urlToPath;
+
+public class FlexCssPropertyTableTest extends LightCodeInsightFixtureTestCase {
+  private static final LightProjectDescriptor FLEX_MODULE_DESCRIPTOR = new DefaultLightProjectDescriptor() {
+    @NotNull
+    @Override
+    public ModuleType getModuleType() {
+      return FlexModuleType.getInstance();
+    }
+  };
+
+  @Override
+  protected void setUp() throws Exception {
+    VfsRootAccess.allowRootAccess(getTestRootDisposable(),
+                                  urlToPath(convertFromUrl(FlexSchemaHandler.class.getResource("z.xsd"))),
+                                  urlToPath(convertFromUrl(FlexStylesIndexableSetContributor.class.getResource("FlexStyles.as"))));
+    super.setUp();
+  }
+
+  @NotNull
+  @Override
+  protected LightProjectDescriptor getProjectDescriptor() {
+    return FLEX_MODULE_DESCRIPTOR;
+  }
+
+  public void testTableSurvivesEditInCssRule() throws Exception {
+    myFixture.configureByText("a.css", ".a {\n  color: red;<caret>\n}");
+    final FlexCssPropertyTable table = FlexCssPropertyTable.getInstance(myFixture.getFile());
+    assertNotEmpty(table.getAllDescriptors());
+
+    myFixture.type("\n  font-size: 10;");
+    PsiDocumentManager.getInstance(getProject()).commitAllDocuments();
+    assertSame(table, FlexCssPropertyTable.getInstance(myFixture.getFile()));
+
+    // styles may be declared in any ActionScript file
+    myFixture.addFileToProject("B.as", "package {\n[Style(name=\"myStyle\", type=\"Number\")]\npublic class B {}\n}");
+    final FlexCssPropertyTable newTable = FlexCssPropertyTable.getInstance(myFixture.getFile());
+    assertNotSame(table, newTable);
+    assertNotEmpty(newTable.getInfos("myStyle"));
+  }
+}
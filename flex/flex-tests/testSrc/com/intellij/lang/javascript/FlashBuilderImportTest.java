@@ -34,6 +34,7 @@ import com.intellij.testFramework.IdeaTestCase;
 import gnu.trove.THashSet;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -251,6 +252,69 @@ public class FlashBuilderImportTest extends IdeaTestCase {
     }
   }
 
+  public void testFindProjectsInDirectoryTree() throws Exception {
+    final File root = new File(myFlashBuilderProjectDir.getPath());
+    final List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      for (int j = 0; j < 5; j++) {
+        final File projectDir = new File(root, "group" + i + "/project" + j);
+        createFlashBuilderProjectFiles(projectDir);
+        expected.add(new File(projectDir, FlashBuilderImporter.DOT_PROJECT).getPath());
+      }
+      // not a Flash Builder project without .actionScriptProperties
+      FileUtil.writeToFile(new File(root, "group" + i + "/other/" + FlashBuilderImporter.DOT_PROJECT), "<projectDescription/>");
+    }
+    // projects nested in other projects are not looked for
+    createFlashBuilderProjectFiles(new File(root, "group0/project0/nested"));
+
+    final List<String> projectPaths = new ArrayList<>();
+    FlashBuilderProjectFinder.collectProjectPaths(projectPaths, root.getPath());
+    assertSameElements(projectPaths, expected);
+  }
+
+  public void testFindProjectsInWorkspace() throws Exception {
+    final File workspace = new File(myFlashBuilderProjectDir.getPath(), "workspace");
+    final File externalDir = new File(myFlashBuilderProjectDir.getPath(), "external");
+    final File projectsCacheDir = new File(workspace, ".metadata/.plugins/org.eclipse.core.resources/.projects");
+    FileUtil.writeToFile(new File(workspace.getPath() + FlashBuilderProjectFinder.PROJECT_PREFS_RELATIVE_PATH), "");
+
+    final List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      final String name = "project" + i;
+      final File projectCacheDir = new File(projectsCacheDir, name);
+      assertTrue(projectCacheDir.mkdirs());
+
+      // projects outside of the workspace are referenced from .location files
+      final boolean external = i % 2 == 1;
+      final File projectDir = new File(external ? externalDir : workspace, name);
+      if (external) {
+        writeDotLocationFile(new File(projectCacheDir, ".location"), projectDir);
+      }
+
+      if (i % 10 != 0) {
+        createFlashBuilderProjectFiles(projectDir);
+        expected.add(new File(projectDir, FlashBuilderImporter.DOT_PROJECT).getPath());
+      }
+    }
+
+    final List<String> projectPaths = new ArrayList<>();
+    FlashBuilderProjectFinder.collectProjectPaths(projectPaths, workspace.getPath());
+    assertSameElements(projectPaths, expected);
+  }
+
+  private static void createFlashBuilderProjectFiles(final File projectDir) throws IOException {
+    FileUtil.writeToFile(new File(projectDir, FlashBuilderImporter.DOT_PROJECT), "<projectDescription/>");
+    FileUtil.writeToFile(new File(projectDir, FlashBuilderImporter.DOT_ACTION_SCRIPT_PROPERTIES), "<actionScriptProperties/>");
+  }
+
+  // 16 bytes of chunk start followed by 'URI//' + project location uri written with writeUTF()
+  private static void writeDotLocationFile(final File dotLocationFile, final File projectDir) throws IOException {
+    try (DataOutputStream out = new DataOutputStream(new FileOutputStream(dotLocationFile))) {
+      out.write(new byte[16]);
+      out.writeUTF("URI//" + StringUtil.trimEnd(projectDir.toURI().toString(), "/"));
+    }
+  }
+
   public void testContentAndSourceRoots() throws Exception {
     final VirtualFile src3 = createChildDirectory(myFlashBuilderProjectDir, "src3");
     final VirtualFile flexUnitTestsDir = createChildDirectory(src3, "flexUnitTests");
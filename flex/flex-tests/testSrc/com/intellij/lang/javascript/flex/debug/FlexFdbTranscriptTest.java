@@ -0,0 +1,279 @@
+package com.intellij.lang.javascript.flex.debug;
+
+import com.intellij.testFramework.LightPlatformTestCase;
+import com.intellij.xdebugger.XDebugSession;
+import com.intellij.xdebugger.frame.XCompositeNode;
+import com.intellij.xdebugger.frame.XValueChildrenList;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Runs debugger commands against canned fdb output and checks what is written to fdb and how responses are attached to values.
+ */
+public class FlexFdbTranscriptTest extends LightPlatformTestCase {
+  private static final String FRAME_0 = "#0   this = [Object 100, class='A'].A/foo(a=1) at A.as:10";
+  private static final String STOP = "Breakpoint 1, A/foo() at A.as:11\n 11         trace(b);";
+  private static final String VARIABLES_COMMANDS = "frame \nprint this\ninfo arguments\ninfo locals";
+
+  /**
+   * Answers each line written to it with the next canned response for that line followed by the fdb prompt.
+   */
+  private static class ScriptedFdb extends Process {
+    private final Map<String, Deque<String>> myResponses = new HashMap<>();
+    // text of each write, pipelined commands are written at once
+    private final List<String> myWrites = new ArrayList<>();
+    private final StringBuilder myOutput = new StringBuilder();
+
+    private final InputStream myInputStream = new InputStream() {
+      private byte[] myBytes = new byte[0];
+      private int myPosition;
+
+      private void fill() {
+        if (myPosition == myBytes.length && myOutput.length() > 0) {
+          myBytes = myOutput.toString().getBytes(StandardCharsets.UTF_8);
+          myPosition = 0;
+          myOutput.setLength(0);
+        }
+      }
+
+      @Override
+      public int read() {
+        fill();
+        return myPosition < myBytes.length ? myBytes[myPosition++] & 0xFF : -1;
+      }
+
+      @Override
+      public int read(@NotNull byte[] b, int off, int len) {
+        fill();
+        if (myPosition == myBytes.length) return -1;
+        final int count = Math.min(len, myBytes.length - myPosition);
+        System.arraycopy(myBytes, myPosition, b, off, count);
+        myPosition += count;
+        return count;
+      }
+
+      @Override
+      public int available() {
+        fill();
+        return myBytes.length - myPosition;
+      }
+    };
+
+    private final OutputStream myOutputStream = new OutputStream() {
+      @Override
+      public void write(int b) {
+        write(new byte[]{(byte)b}, 0, 1);
+      }
+
+      @Override
+      public void write(@NotNull byte[] b, int off, int len) {
+        final String text = new String(b, off, len, StandardCharsets.UTF_8);
+        myWrites.add(text.endsWith("\n") ? text.substring(0, text.length() - 1) : text);
+        for (String line : text.split("\n")) {
+          final Deque<String> responses = myResponses.get(line.trim());
+          assertTrue("unexpected command: " + line, responses != null && !responses.isEmpty());
+          myOutput.append(responses.removeFirst()).append("\n(fdb) ");
+        }
+      }
+    };
+
+    private void respond(@NonNls @NotNull String command, @NonNls @NotNull String... responses) {
+      Deque<String> deque = myResponses.get(command);
+      if (deque == null) {
+        deque = new ArrayDeque<>();
+        myResponses.put(command, deque);
+      }
+      Collections.addAll(deque, responses);
+    }
+
+    private List<String> takeWrites() {
+      final List<String> result = new ArrayList<>(myWrites);
+      myWrites.clear();
+      return result;
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+      return myOutputStream;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+      return myInputStream;
+    }
+
+    @Override
+    public InputStream getErrorStream() {
+      return new ByteArrayInputStream(new byte[0]);
+    }
+
+    @Override
+    public int waitFor() {
+      return 0;
+    }
+
+    @Override
+    public int exitValue() {
+      return 0;
+    }
+
+    @Override
+    public void destroy() {
+    }
+  }
+
+  /**
+   * Node which records added children as "name = value" and may become obsolete after the first children are added.
+   */
+  private static class RecordingNode {
+    private final List<String> myChildren = new ArrayList<>();
+    private final boolean myObsoleteAfterFirstChildren;
+    private boolean myObsolete;
+    private boolean myDone;
+
+    private RecordingNode(boolean obsoleteAfterFirstChildren) {
+      myObsoleteAfterFirstChildren = obsoleteAfterFirstChildren;
+    }
+
+    private final XCompositeNode myNode = (XCompositeNode)Proxy.newProxyInstance(
+      XCompositeNode.class.getClassLoader(), new Class[]{XCompositeNode.class}, (proxy, method, args) -> {
+        switch (method.getName()) {
+          case "addChildren":
+            final XValueChildrenList children = (XValueChildrenList)args[0];
+            for (int i = 0; i < children.size(); i++) {
+              myChildren.add(children.getName(i) + " = " + ((FlexValue)children.getValue(i)).getResult());
+            }
+            if ((Boolean)args[1]) myDone = true;
+            if (myObsoleteAfterFirstChildren && children.size() > 0) myObsolete = true;
+            return null;
+          case "isObsolete":
+            return myObsolete;
+          case "hashCode":
+            return System.identityHashCode(proxy);
+          case "equals":
+            return proxy == args[0];
+          case "toString":
+            return "RecordingNode";
+          default:
+            return null;
+        }
+      });
+  }
+
+  private ScriptedFdb myFdb;
+  private FlexDebugProcess myDebugProcess;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    final XDebugSession session = (XDebugSession)Proxy.newProxyInstance(
+      XDebugSession.class.getClassLoader(), new Class[]{XDebugSession.class}, (proxy, method, args) -> {
+        if ("getProject".equals(method.getName())) return getProject();
+        if (method.getReturnType() == boolean.class) return false;
+        return null;
+      });
+    myFdb = new ScriptedFdb();
+    myDebugProcess = new FlexDebugProcess(session, myFdb, "4.6.0");
+  }
+
+  @NotNull
+  private FlexStackFrame createTopFrame(final int line) {
+    final FlexStackFrame frame = new FlexStackFrame(myDebugProcess, "A.as", line);
+    new FlexSuspendContext(frame);
+    return frame;
+  }
+
+  @NotNull
+  private RecordingNode computeChildren(@NotNull final FlexStackFrame frame) throws Exception {
+    final RecordingNode node = new RecordingNode(false);
+    frame.computeChildren(node.myNode);
+    myDebugProcess.processCommandsForTest();
+    assertTrue(node.myDone);
+    return node;
+  }
+
+  private void respondToVariables(@NotNull String self, @NotNull String arguments, @NotNull String locals) {
+    myFdb.respond("frame", FRAME_0);
+    myFdb.respond("print this", self);
+    myFdb.respond("info arguments", arguments);
+    myFdb.respond("info locals", locals);
+  }
+
+  public void testVariablesCommandsArePipelined() throws Exception {
+    respondToVariables("$1 = [Object 100, class='A']", "a = 1", "b = 2\nc = \"x\"");
+
+    final RecordingNode node = computeChildren(createTopFrame(10));
+
+    assertEquals(Collections.singletonList(VARIABLES_COMMANDS), myFdb.takeWrites());
+    assertEquals(Arrays.asList("this = [Object 100, class='A']", "a = 1", "b = 2", "c = \"x\""), node.myChildren);
+  }
+
+  public void testCachedUntilResume() throws Exception {
+    respondToVariables("$1 = [Object 100, class='A']", "a = 1", "b = 2");
+    final FlexStackFrame frame = createTopFrame(10);
+
+    final List<String> children = computeChildren(frame).myChildren;
+    assertEquals(Collections.singletonList(VARIABLES_COMMANDS), myFdb.takeWrites());
+
+    // expanding the frame again in the same suspend context replays the responses
+    assertEquals(children, computeChildren(frame).myChildren);
+    assertEmpty(myFdb.takeWrites());
+
+    // resume and stop at the next line
+    myFdb.respond("continue", STOP);
+    myDebugProcess.resume(null);
+    myDebugProcess.processCommandsForTest();
+    final List<String> stopOutput = new ArrayList<>();
+    myDebugProcess.sendCommand(new DebuggerCommand("does not matter because post() is empty", CommandOutputProcessingType.SPECIAL_PROCESSING) {
+      @Override
+      public void post(FlexDebugProcess flexDebugProcess) {
+      }
+
+      @Override
+      CommandOutputProcessingMode onTextAvailable(@NonNls String s) {
+        stopOutput.add(s);
+        return CommandOutputProcessingMode.DONE;
+      }
+    });
+    myDebugProcess.processCommandsForTest();
+    assertEquals(Collections.singletonList("continue"), myFdb.takeWrites());
+    assertEquals(Collections.singletonList(STOP.trim()), stopOutput);
+
+    // values of the new suspend context are read from fdb again
+    respondToVariables("$2 = [Object 100, class='A']", "a = 1", "b = 3");
+    final RecordingNode node = computeChildren(createTopFrame(11));
+
+    assertEquals(Collections.singletonList(VARIABLES_COMMANDS), myFdb.takeWrites());
+    assertEquals(Arrays.asList("this = [Object 100, class='A']", "a = 1", "b = 3"), node.myChildren);
+  }
+
+  public void testResponsesOfObsoleteNodeDontLeak() throws Exception {
+    respondToVariables("$1 = [Object 100, class='A']", "a = 1", "b = 2");
+    myFdb.respond("bt", FRAME_0);
+
+    final RecordingNode node = new RecordingNode(true);
+    createTopFrame(10).computeChildren(node.myNode);
+    final List<String> btOutput = new ArrayList<>();
+    myDebugProcess.sendCommand(new DebuggerCommand("bt", CommandOutputProcessingType.SPECIAL_PROCESSING) {
+      @Override
+      CommandOutputProcessingMode onTextAvailable(@NonNls String s) {
+        btOutput.add(s);
+        return CommandOutputProcessingMode.DONE;
+      }
+    });
+    myDebugProcess.processCommandsForTest();
+
+    assertEquals(Arrays.asList(VARIABLES_COMMANDS, "bt"), myFdb.takeWrites());
+    // the responses to "info arguments" and "info locals" were already requested, they are read but not shown
+    assertEquals(Collections.singletonList("this = [Object 100, class='A']"), node.myChildren);
+    assertEquals(Collections.singletonList(FRAME_0), btOutput);
+  }
+}
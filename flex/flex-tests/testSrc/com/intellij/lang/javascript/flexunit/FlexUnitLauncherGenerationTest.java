@@ -0,0 +1,65 @@
+package com.intellij.lang.javascript.flexunit;
+
+import com.intellij.lang.javascript.flex.flexunit.FlexUnitPrecompileTask;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.containers.ContainerUtil;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+public class FlexUnitLauncherGenerationTest extends TestCase {
+
+  public void testClassOrderDoesNotAffectLauncher() {
+    final Pair<String, Set<String>> test1 = Pair.create("a.Test1", ContainerUtil.newHashSet("r.Runner2", "r.Runner1"));
+    final Pair<String, Set<String>> test2 = Pair.create("Test2", Collections.emptySet());
+    final Pair<String, Set<String>> test3 = Pair.create("b.c.Test3", Collections.singleton("r.Runner1"));
+
+    final String code = generate(Arrays.asList(test1, test2, test3));
+    assertEquals(code, generate(Arrays.asList(test3, test2, test1)));
+    assertEquals(code, generate(Arrays.asList(test2, test1, test3)));
+
+    assertEquals("import a.Test1;\n" +
+                 "import r.Runner1;\n" +
+                 "import r.Runner2;\n" +
+                 "import b.c.Test3;\n" +
+                 "import r.Runner1;\n" +
+                 "__testRunner.addTestClass(Test2);\n" +
+                 "__testRunner.addTestClass(a.Test1);\n" +
+                 "var __ref_a_Test1_1_ : r.Runner1;\n" +
+                 "var __ref_a_Test1_2_ : r.Runner2;\n" +
+                 "__testRunner.addTestClass(b.c.Test3);\n" +
+                 "var __ref_b_c_Test3_1_ : r.Runner1;\n", code);
+  }
+
+  public void testLauncherRewrittenOnlyIfChanged() throws IOException {
+    final File dir = FileUtil.createTempDirectory("flexunit", null);
+    try {
+      final File launcher = new File(dir, "Launcher.as");
+      assertTrue(FlexUnitPrecompileTask.writeLauncherIfChanged(launcher, "launcher 1"));
+
+      assertTrue(launcher.setLastModified(1000));
+      assertFalse(FlexUnitPrecompileTask.writeLauncherIfChanged(launcher, "launcher 1"));
+      assertEquals(1000, launcher.lastModified());
+
+      assertTrue(FlexUnitPrecompileTask.writeLauncherIfChanged(launcher, "launcher 2"));
+      assertEquals("launcher 2", FileUtil.loadFile(launcher));
+      assertTrue(launcher.lastModified() > 1000);
+    }
+    finally {
+      FileUtil.delete(dir);
+    }
+  }
+
+  private static String generate(final List<Pair<String, Set<String>>> classes) {
+    final StringBuilder imports = new StringBuilder();
+    final StringBuilder code = new StringBuilder();
+    FlexUnitPrecompileTask.generateTestClassesCode(imports, code, classes);
+    return imports.toString() + code;
+  }
+}
@@ -111,7 +111,8 @@ public class FlexBuilder extends TargetBuilder<BuildRootDescriptor, FlexBuildTar
 
     final List<JpsFlexBuildConfiguration> bcsToCompile = getAllBCsToCompile(mainBC);
 
-    if (!FlexCommonUtils.isFlexUnitBC(mainBC) && !isFlexmojosBCWithUpdatedConfigFile(mainBC)) {
+    if ((!FlexCommonUtils.isFlexUnitBC(mainBC) || isFlexUnitLauncherUpToDate(context, mainBC)) &&
+        !isFlexmojosBCWithUpdatedConfigFile(mainBC)) {
       if (dirtyFilePaths.isEmpty()) {
         boolean outputFilesExist = true;
 
@@ -177,6 +178,17 @@ public class FlexBuilder extends TargetBuilder<BuildRootDescriptor, FlexBuildTar
     return configFile.lastModified() > outputFile.lastModified();
   }
 
+  /**
+   * FlexUnitPrecompileTask rewrites the launcher only if the tests to run or runner parameters have changed, so swf compiled after
+   * the last launcher change may be reused if there are no dirty files.
+   */
+  private static boolean isFlexUnitLauncherUpToDate(final CompileContext context, final JpsFlexBuildConfiguration bc) {
+    final File launcherFile = new File(CompilerConfigGeneratorRt.getPathToFlexUnitMainClass(context.getProjectDescriptor(),
+                                                                                            bc.getNature(), bc.getMainClass()));
+    final File outputFile = new File(bc.getActualOutputFilePath());
+    return launcherFile.isFile() && outputFile.lastModified() > launcherFile.lastModified();
+  }
+
   private static boolean isOnlyWrapperFilesDirty(final JpsFlexBuildConfiguration bc, final Collection<String> dirtyFilePaths) {
     if (bc.getTargetPlatform() == TargetPlatform.Web && bc.isUseHtmlWrapper() && !bc.getWrapperTemplatePath().isEmpty()) {
       for (String dirtyFilePath : dirtyFilePaths) {
@@ -276,7 +276,7 @@ public class FlexCssElementDescriptorProvider extends CssElementDescriptorProvid
     if (context != null) {
       Module module = findModuleForPsiElement(context);
       GlobalSearchScope scope = FlexCssUtil.getResolveScope(context);
-      List<Set<FlexStyleIndexInfo>> lists = FileBasedIndex.getInstance().getValues(FlexStyleIndex.INDEX_ID, propertyName, scope);
+      List<Set<FlexStyleIndexInfo>> lists = FlexCssPropertyTable.getInstance(context).getInfos(propertyName);
       List<CssSimpleSelector> selectors = findSimpleSelectorsAbove(context);
       List<FlexStyleIndexInfo> infos = filter(lists, selectors, scope, module);
       if (infos.size() > 0) {
@@ -308,10 +308,6 @@ public class FlexCssElementDescriptorProvider extends CssElementDescriptorProvid
     return false;
   }
 
-  private static boolean isInClassicForm(String propertyName) {
-    return propertyName.indexOf('-') >= 0;
-  }
-
   private static void fillPropertyDescriptorsDynamically(@NotNull final JSClass jsClass, Set<JSClass> visited, final Set<CssPropertyDescriptor> result) {
     if (!visited.add(jsClass)) return;
     FlexUtils.processMetaAttributesForClass(jsClass, new ActionScriptResolveUtil.MetaDataProcessor() {
@@ -396,18 +392,7 @@ public class FlexCssElementDescriptorProvider extends CssElementDescriptorProvid
         return getPropertyDescriptorsDynamically(simpleSelectors, module);
       }
     }
-    FileBasedIndex index = FileBasedIndex.getInstance();
-    Collection<String> keys = ContainerUtil.sorted(index.getAllKeys(FlexStyleIndex.INDEX_ID, context.getProject()));
-    List<FlexCssPropertyDescriptor> result = new ArrayList<>();
-    GlobalSearchScope scope = FlexCssUtil.getResolveScope(context);
-    for (String key : keys) {
-      if (!isInClassicForm(key)) {
-        for (Set<FlexStyleIndexInfo> infos : index.getValues(FlexStyleIndex.INDEX_ID, key, scope)) {
-          result.add(new FlexCssPropertyDescriptor(infos)); 
-        }
-      }
-    }
-    return result;
+    return FlexCssPropertyTable.getInstance(context).getAllDescriptors();
   }
 
   @NotNull
@@ -0,0 +1,139 @@
+package com.intellij.javascript.flex.css;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.NotNullLazyKey;
+import com.intellij.openapi.util.SimpleModificationTracker;
+import com.intellij.psi.*;
+import com.intellij.psi.css.CssFileType;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.util.ConcurrencyUtil;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.indexing.FileBasedIndex;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Styles from {@link FlexStyleIndex} visible in a resolve scope, cached until project roots or files other than CSS change: styles
+ * are declared in ActionScript, MXML and libraries, so typing in a CSS file doesn't drop the tables. Highlighting looks up
+ * each property, so the index values are read lazily per looked-up name; only completion, which asks for all properties,
+ * reads all index keys.
+ *
+ * @see FlexCssUtil#getModuleOrElementResolveScope(PsiElement)
+ */
+class FlexCssPropertyTable {
+  private static final Key<CachedValue<ConcurrentMap<GlobalSearchScope, FlexCssPropertyTable>>> TABLES_KEY =
+    Key.create("flex.css.property.tables");
+
+  private static final NotNullLazyKey<SimpleModificationTracker, Project> STYLES_TRACKER_KEY =
+    NotNullLazyKey.create("flex.css.styles.tracker", project -> {
+      final SimpleModificationTracker tracker = new SimpleModificationTracker();
+      PsiManager.getInstance(project).addPsiTreeChangeListener(new PsiTreeChangeAdapter() {
+        @Override
+        public void childAdded(@NotNull PsiTreeChangeEvent event) {
+          changed(event);
+        }
+
+        @Override
+        public void childRemoved(@NotNull PsiTreeChangeEvent event) {
+          changed(event);
+        }
+
+        @Override
+        public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+          changed(event);
+        }
+
+        @Override
+        public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+          changed(event);
+        }
+
+        @Override
+        public void childMoved(@NotNull PsiTreeChangeEvent event) {
+          changed(event);
+        }
+
+        @Override
+        public void propertyChanged(@NotNull PsiTreeChangeEvent event) {
+          changed(event);
+        }
+
+        private void changed(@NotNull PsiTreeChangeEvent event) {
+          final PsiFile file = event.getFile();
+          if (file == null || file.getFileType() != CssFileType.INSTANCE) {
+            tracker.incModificationCount();
+          }
+        }
+      }, project);
+      return tracker;
+    });
+
+  private final Project myProject;
+  private final GlobalSearchScope myScope;
+  // style name -> index values, each value holds infos from one file
+  private final ConcurrentMap<String, List<Set<FlexStyleIndexInfo>>> myInfos = ContainerUtil.newConcurrentMap();
+  private volatile List<FlexCssPropertyDescriptor> myAllDescriptors;
+
+  private FlexCssPropertyTable(@NotNull Project project, @NotNull GlobalSearchScope scope) {
+    myProject = project;
+    myScope = scope;
+  }
+
+  @NotNull
+  static FlexCssPropertyTable getInstance(@NotNull PsiElement context) {
+    Project project = context.getProject();
+    CachedValueProvider<ConcurrentMap<GlobalSearchScope, FlexCssPropertyTable>> provider =
+      () -> CachedValueProvider.Result.create(ContainerUtil.newConcurrentMap(),
+                                              STYLES_TRACKER_KEY.getValue(project),
+                                              ProjectRootManager.getInstance(project));
+    ConcurrentMap<GlobalSearchScope, FlexCssPropertyTable> tables =
+      CachedValuesManager.getManager(project).getCachedValue(project, TABLES_KEY, provider, false);
+
+    GlobalSearchScope scope = FlexCssUtil.getModuleOrElementResolveScope(context);
+    FlexCssPropertyTable table = tables.get(scope);
+    if (table == null) {
+      table = ConcurrencyUtil.cacheOrGet(tables, scope, new FlexCssPropertyTable(project, FlexStylesIndexableSetContributor.enlarge(scope)));
+    }
+    return table;
+  }
+
+  @NotNull
+  List<Set<FlexStyleIndexInfo>> getInfos(@NotNull String propertyName) {
+    List<Set<FlexStyleIndexInfo>> infos = myInfos.get(propertyName);
+    if (infos == null) {
+      infos = ConcurrencyUtil.cacheOrGet(myInfos, propertyName,
+                                         FileBasedIndex.getInstance().getValues(FlexStyleIndex.INDEX_ID, propertyName, myScope));
+    }
+    return infos;
+  }
+
+  /**
+   * @return descriptors sorted by property name, properties in classic form (e.g. <code>font-size</code>) are skipped
+   */
+  @NotNull
+  List<FlexCssPropertyDescriptor> getAllDescriptors() {
+    List<FlexCssPropertyDescriptor> descriptors = myAllDescriptors;
+    if (descriptors == null) {
+      descriptors = new ArrayList<>();
+      for (String name : ContainerUtil.sorted(FileBasedIndex.getInstance().getAllKeys(FlexStyleIndex.INDEX_ID, myProject))) {
+        if (name.indexOf('-') < 0) {
+          for (Set<FlexStyleIndexInfo> infos : getInfos(name)) {
+            descriptors.add(new FlexCssPropertyDescriptor(infos));
+          }
+        }
+      }
+      myAllDescriptors = descriptors = Collections.unmodifiableList(descriptors);
+    }
+    return descriptors;
+  }
+}
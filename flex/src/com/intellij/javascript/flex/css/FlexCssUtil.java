@@ -70,8 +70,14 @@ public class FlexCssUtil {
   }
 
   public static GlobalSearchScope getResolveScope(PsiElement context) {
+    return FlexStylesIndexableSetContributor.enlarge(getModuleOrElementResolveScope(context));
+  }
+
+  /**
+   * Unlike {@link #getResolveScope(PsiElement)} the returned scope implements <code>equals()</code>, so it can be used as a cache key.
+   */
+  static GlobalSearchScope getModuleOrElementResolveScope(PsiElement context) {
     Module module = ModuleUtilCore.findModuleForPsiElement(context);
-    GlobalSearchScope scope = module != null ? module.getModuleWithDependenciesAndLibrariesScope(false) : context.getResolveScope();
-    return FlexStylesIndexableSetContributor.enlarge(scope);
+    return module != null ? module.getModuleWithDependenciesAndLibrariesScope(false) : context.getResolveScope();
   }
 }
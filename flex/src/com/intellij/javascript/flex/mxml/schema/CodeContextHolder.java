@@ -1,41 +1,101 @@
 package com.intellij.javascript.flex.mxml.schema;
 
 import com.intellij.ProjectTopics;
+import com.intellij.lang.javascript.flex.FlexModuleType;
+import com.intellij.lang.javascript.flex.FlexUtils;
+import com.intellij.lang.javascript.flex.projectStructure.model.*;
+import com.intellij.lang.javascript.flex.projectStructure.options.FlexProjectRootsUtil;
 import com.intellij.openapi.components.AbstractProjectComponent;
 import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleType;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.openapi.roots.LibraryOrderEntry;
 import com.intellij.openapi.roots.ModuleRootEvent;
 import com.intellij.openapi.roots.ModuleRootListener;
+import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.roots.OrderRootType;
+import com.intellij.openapi.roots.libraries.Library;
+import com.intellij.util.ConcurrencyUtil;
+import com.intellij.util.containers.ContainerUtil;
 import gnu.trove.THashMap;
+import gnu.trove.THashSet;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentMap;
 
 /**
+ * Code contexts of namespaces that come from the SDK and libraries are built from the SDK, libraries and namespace-related compiler
+ * options of the active build configuration. They are kept while those stay the same, so unrelated roots changes don't rebuild them.
+ * Contexts are not shared between modules even if their libraries are equal: descriptors resolve classes in the scope of
+ * {@link CodeContext#module}, and module sources may shadow library classes. Contexts of package-backed namespaces depend on module
+ * sources and are dropped on any roots change.
+ *
  * @author Maxim.Mossienko
 */
 public class CodeContextHolder extends AbstractProjectComponent {
-  private final Set<Module> myModulesWithSdkComponentsHandled = new HashSet<>();
-  private final Map<String, Map<Module, CodeContext>> myStandardContexts = new HashMap<>();
-  private final Map<String, Map<Module, CodeContext>> myNSToCodeContextMap = new THashMap<>();
+  private final ConcurrentMap<Module, ConcurrentMap<String, CodeContext>> myModuleToPackageBackedContexts = ContainerUtil.newConcurrentMap();
+  private final ConcurrentMap<Module, String> myModuleToLibrariesKey = ContainerUtil.newConcurrentMap();
+  private final ConcurrentMap<String, LibraryContexts> myLibrariesKeyToContexts = ContainerUtil.newConcurrentMap();
   static final CodeContext EMPTY = new CodeContext(null, null);
 
+  private static class LibraryContexts {
+    private final ConcurrentMap<String, CodeContext> myStandardContexts = ContainerUtil.newConcurrentMap();
+    private final ConcurrentMap<String, CodeContext> myNSToCodeContextMap = ContainerUtil.newConcurrentMap();
+    private volatile boolean mySdkComponentsHandled;
+  }
+
   public CodeContextHolder(Project project) {
     super(project);
     project.getMessageBus().connect().subscribe(ProjectTopics.PROJECT_ROOTS, new ModuleRootListener() {
       @Override
       public void rootsChanged(final ModuleRootEvent event) {
-        synchronized (CodeContextHolder.this) {
-          myNSToCodeContextMap.clear();
-          myStandardContexts.clear();
-          myModulesWithSdkComponentsHandled.clear();
-        }
+        myModuleToPackageBackedContexts.clear();
+        myModuleToLibrariesKey.clear();
+        retainUpToDateContexts();
       }
     });
   }
 
+  /**
+   * Drops contexts of modules that are disposed or now have a different set of libraries,
+   * so that contexts of modules with unchanged libraries are not rebuilt after unrelated roots changes.
+   */
+  private void retainUpToDateContexts() {
+    final Map<Module, String> newKeys = new THashMap<>();
+
+    for (Iterator<Map.Entry<String, LibraryContexts>> iterator = myLibrariesKeyToContexts.entrySet().iterator(); iterator.hasNext(); ) {
+      final Map.Entry<String, LibraryContexts> entry = iterator.next();
+      final LibraryContexts contexts = entry.getValue();
+
+      if (!isUpToDate(entry.getKey(), contexts.myStandardContexts.values(), newKeys) ||
+          !isUpToDate(entry.getKey(), contexts.myNSToCodeContextMap.values(), newKeys)) {
+        iterator.remove();
+      }
+    }
+  }
+
+  private static boolean isUpToDate(@NotNull final String librariesKey,
+                                    @NotNull final Collection<CodeContext> contexts,
+                                    @NotNull final Map<Module, String> newKeys) {
+    for (CodeContext context : contexts) {
+      final Module module = context.module;
+      if (module == null || module.isDisposed()) return false;
+
+      String newKey = newKeys.get(module);
+      if (newKey == null && !newKeys.containsKey(module)) {
+        newKey = computeLibrariesKey(module);
+        newKeys.put(module, newKey);
+      }
+
+      if (!librariesKey.equals(newKey)) return false;
+    }
+    return true;
+  }
+
   @Override
   @NonNls
   @NotNull
@@ -44,25 +104,44 @@ public class CodeContextHolder extends AbstractProjectComponent {
   }
 
   @Nullable
-  public synchronized CodeContext getCodeContext(@NotNull final String namespace, @NotNull final Module module) {
-    final Map<Module, CodeContext> map = myNSToCodeContextMap.get(namespace);
-    if (map != null) return map.get(module);
-    return null;
+  public CodeContext getCodeContext(@NotNull final String namespace, @NotNull final Module module) {
+    if (CodeContext.isPackageBackedNamespace(namespace)) {
+      final Map<String, CodeContext> map = myModuleToPackageBackedContexts.get(module);
+      return map == null ? null : map.get(namespace);
+    }
+
+    final LibraryContexts contexts = getLibraryContexts(module);
+    return contexts == null ? null : contexts.myNSToCodeContextMap.get(namespace);
   }
 
-  public synchronized void putCodeContext(@NotNull final String namespace, @NotNull final Module module, @NotNull final CodeContext codeContext) {
-    Map<Module, CodeContext> map = myNSToCodeContextMap.get(namespace);
-    if (map == null) {
-      map = new THashMap<>();
-      myNSToCodeContextMap.put(namespace, map);
+  public void putCodeContext(@NotNull final String namespace, @NotNull final Module module, @NotNull final CodeContext codeContext) {
+    if (CodeContext.isPackageBackedNamespace(namespace)) {
+      ConcurrentMap<String, CodeContext> map = myModuleToPackageBackedContexts.get(module);
+      if (map == null) {
+        map = ConcurrencyUtil.cacheOrGet(myModuleToPackageBackedContexts, module, ContainerUtil.<String, CodeContext>newConcurrentMap());
+      }
+      map.put(namespace, codeContext);
+      return;
+    }
+
+    final LibraryContexts contexts = getLibraryContexts(module);
+    if (contexts != null) {
+      contexts.myNSToCodeContextMap.put(namespace, codeContext);
     }
-    map.put(module, codeContext);
   }
 
-  public synchronized void clearCodeContext(@NotNull final String namespace, @NotNull final Module module) {
-    Map<Module, CodeContext> map = myNSToCodeContextMap.get(namespace);
-    if (map != null) {
-      map.remove(module);
+  public void clearCodeContext(@NotNull final String namespace, @NotNull final Module module) {
+    if (CodeContext.isPackageBackedNamespace(namespace)) {
+      final Map<String, CodeContext> map = myModuleToPackageBackedContexts.get(module);
+      if (map != null) {
+        map.remove(namespace);
+      }
+      return;
+    }
+
+    final LibraryContexts contexts = getLibraryContexts(module);
+    if (contexts != null) {
+      contexts.myNSToCodeContextMap.remove(namespace);
     }
   }
 
@@ -71,40 +150,142 @@ public class CodeContextHolder extends AbstractProjectComponent {
   }
 
   @Nullable
-  public synchronized CodeContext getStandardContext(final String namespace, final Module module) {
-    final Map<Module, CodeContext> map = myStandardContexts.get(namespace);
-    return map == null ? null : map.get(module);
+  public CodeContext getStandardContext(final String namespace, final Module module) {
+    final LibraryContexts contexts = getLibraryContexts(module);
+    return contexts == null ? null : contexts.myStandardContexts.get(namespace);
   }
 
-  public synchronized Collection<String> getNamespaces(final Module module) {
+  public Collection<String> getNamespaces(final Module module) {
     final List<String> result = new ArrayList<>();
-    for (final Map.Entry<String, Map<Module, CodeContext>> entry : myStandardContexts.entrySet()) {
-      if (entry.getValue().containsKey(module)) {
-        result.add(entry.getKey());
-      }
+
+    final LibraryContexts contexts = getLibraryContexts(module);
+    if (contexts != null) {
+      result.addAll(contexts.myStandardContexts.keySet());
+      result.addAll(contexts.myNSToCodeContextMap.keySet());
     }
-    for (final Map.Entry<String, Map<Module, CodeContext>> entry : myNSToCodeContextMap.entrySet()) {
-      if (entry.getValue().containsKey(module)) {
-        result.add(entry.getKey());
-      }
+
+    final Map<String, CodeContext> packageBackedContexts = myModuleToPackageBackedContexts.get(module);
+    if (packageBackedContexts != null) {
+      result.addAll(packageBackedContexts.keySet());
     }
+
     return result;
   }
 
-  synchronized void putStandardContext(final String namespace, final Module module, final CodeContext codeContext) {
-    Map<Module, CodeContext> map = myStandardContexts.get(namespace);
-    if (map == null) {
-      map = new HashMap<>();
-      myStandardContexts.put(namespace, map);
+  void putStandardContext(final String namespace, final Module module, final CodeContext codeContext) {
+    final LibraryContexts contexts = getLibraryContexts(module);
+    if (contexts != null) {
+      contexts.myStandardContexts.put(namespace, codeContext);
     }
-    map.put(module, codeContext);
   }
 
-  synchronized boolean areSdkComponentsHandledForModule(final Module module) {
-    return myModulesWithSdkComponentsHandled.contains(module);
+  boolean areSdkComponentsHandledForModule(final Module module) {
+    final LibraryContexts contexts = getLibraryContexts(module);
+    return contexts != null && contexts.mySdkComponentsHandled;
+  }
+
+  boolean setSdkComponentsHandledForModule(final Module module) {
+    final LibraryContexts contexts = getLibraryContexts(module);
+    if (contexts == null || contexts.mySdkComponentsHandled) return false;
+
+    contexts.mySdkComponentsHandled = true;
+    return true;
   }
 
-  synchronized boolean setSdkComponentsHandledForModule(final Module module) {
-    return myModulesWithSdkComponentsHandled.add(module);
+  @Nullable
+  private LibraryContexts getLibraryContexts(@Nullable final Module module) {
+    if (module == null || module.isDisposed()) return null;
+
+    String key = myModuleToLibrariesKey.get(module);
+    if (key == null) {
+      key = computeLibrariesKey(module);
+      if (key == null) return null;
+      key = ConcurrencyUtil.cacheOrGet(myModuleToLibrariesKey, module, key);
+    }
+
+    final LibraryContexts contexts = myLibrariesKeyToContexts.get(key);
+    return contexts != null ? contexts : ConcurrencyUtil.cacheOrGet(myLibrariesKeyToContexts, key, new LibraryContexts());
+  }
+
+  /**
+   * Describes the module and everything that its code contexts of non-package-backed namespaces are built from,
+   * see CodeContext.getStdCodeContext() and CodeContext.createCodeContextFromLibraries().
+   */
+  @Nullable
+  private static String computeLibrariesKey(@NotNull final Module module) {
+    if (module.isDisposed() || !(ModuleType.get(module) instanceof FlexModuleType)) return null;
+
+    final FlexBuildConfiguration bc = FlexBuildConfigurationManager.getInstance(module).getActiveConfiguration();
+    if (bc == null) return null;
+
+    final StringBuilder key = new StringBuilder();
+    key.append(module.getName()).append('|');
+    appendBcKey(key, module, bc, new THashSet<>());
+    return key.toString();
+  }
+
+  /**
+   * Contexts are also built from BC dependencies (see addComponentsFromManifests()), so their output type, SDK and namespaces
+   * are described as well, recursively.
+   */
+  private static void appendBcKey(@NotNull final StringBuilder key,
+                                  @NotNull final Module module,
+                                  @NotNull final FlexBuildConfiguration bc,
+                                  @NotNull final Set<FlexBuildConfiguration> visited) {
+    if (!visited.add(bc)) {
+      key.append("<cycle>");
+      return;
+    }
+
+    key.append(bc.getNature()).append('|').append(bc.getOutputType()).append('|').append(bc.isPureAs()).append('|')
+      .append(bc.getDependencies().getTargetPlayer()).append('|').append(bc.getDependencies().getComponentSet()).append('|')
+      .append(bc.getCompilerOptions().getAdditionalConfigFilePath()).append('|');
+
+    FlexUtils.processCompilerOption(module, bc, "compiler.namespaces.namespace", namespaceAndManifest -> {
+      key.append(namespaceAndManifest.first).append('=').append(namespaceAndManifest.second).append('|');
+      return true;
+    });
+
+    final Sdk sdk = bc.getSdk();
+    if (sdk != null) {
+      key.append("sdk:").append(sdk.getName()).append('|').append(sdk.getHomePath()).append('|').append(sdk.getVersionString());
+      appendUrls(key, sdk.getRootProvider().getUrls(OrderRootType.CLASSES));
+    }
+
+    final ModuleRootManager rootManager = ModuleRootManager.getInstance(module);
+    for (DependencyEntry entry : bc.getDependencies().getEntries()) {
+      key.append("\n").append(entry.getDependencyType().getLinkageType()).append(':');
+
+      if (entry instanceof BuildConfigurationEntry) {
+        final BuildConfigurationEntry bcEntry = (BuildConfigurationEntry)entry;
+        key.append("bc:").append(bcEntry.getModuleName()).append('/').append(bcEntry.getBcName()).append('{');
+        final Module dependencyModule = bcEntry.findModule();
+        final FlexBuildConfiguration dependencyBc = bcEntry.findBuildConfiguration();
+        if (dependencyModule != null && dependencyBc != null) {
+          appendBcKey(key, dependencyModule, dependencyBc, visited);
+        }
+        key.append('}');
+      }
+      else if (entry instanceof ModuleLibraryEntry) {
+        final LibraryOrderEntry orderEntry = FlexProjectRootsUtil.findOrderEntry((ModuleLibraryEntry)entry, rootManager);
+        if (orderEntry != null) {
+          appendUrls(key, orderEntry.getRootUrls(OrderRootType.CLASSES));
+        }
+      }
+      else if (entry instanceof SharedLibraryEntry) {
+        final Library library = FlexProjectRootsUtil.findOrderEntry(module.getProject(), (SharedLibraryEntry)entry);
+        if (library != null) {
+          appendUrls(key, library.getUrls(OrderRootType.CLASSES));
+        }
+      }
+    }
+
+    visited.remove(bc);
+  }
+
+  private static void appendUrls(@NotNull final StringBuilder key, @NotNull final String[] urls) {
+    for (String url : urls) {
+      key.append('|').append(url);
+    }
   }
 }
@@ -1,5 +1,6 @@
 package com.intellij.lang.javascript.flex.debug;
 
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.xdebugger.Obsolescent;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
@@ -19,6 +20,10 @@ class CompositeDebuggerCommand extends DebuggerCommand {
   private final Obsolescent myObsolescent;
   private volatile boolean myBecomeObsolete;
   private volatile boolean mySucceeded;
+  // commands before this index have already been written to fdb
+  private int myPostedCount;
+  // number of fdb responses to the already written commands that are not read yet
+  private int myPendingResponses;
 
   public CompositeDebuggerCommand(final @NotNull DebuggerCommand... commands) {
     this(null, commands);
@@ -35,11 +40,33 @@ class CompositeDebuggerCommand extends DebuggerCommand {
   @Override
   public void post(final FlexDebugProcess flexDebugProcess) throws IOException {
     myFlexDebugProcess = flexDebugProcess;
-    if (myObsolescent != null && myObsolescent.isObsolete() && !myBecomeObsolete) {
+    if (myBecomeObsolete || myCurrentIndex < myPostedCount) {
+      // responses to the commands written earlier are read in read()
+      return;
+    }
+    if (myObsolescent != null && myObsolescent.isObsolete()) {
       dispatchObsolete();
       return;
     }
-    myCommands[myCurrentIndex].post(flexDebugProcess);
+
+    final DebuggerCommand command = myCommands[myCurrentIndex];
+    if (!command.canBePipelined()) {
+      command.post(flexDebugProcess);
+      return;
+    }
+
+    // write all following pipelinable commands at once instead of waiting for the "(fdb)" prompt after each of them
+    final StringBuilder text = new StringBuilder();
+    int index = myCurrentIndex;
+    for (; index < myCommands.length && myCommands[index].canBePipelined(); index++) {
+      if (text.length() > 0) text.append('\n');
+      final String commandText = myCommands[index].getText();
+      text.append(commandText);
+      myPendingResponses += StringUtil.countNewLines(commandText) + 1;
+    }
+
+    myPostedCount = index;
+    flexDebugProcess.doSendCommandText(command, text.toString());
   }
 
   private void dispatchObsolete() {
@@ -77,6 +104,10 @@ class CompositeDebuggerCommand extends DebuggerCommand {
     if (b == CommandOutputProcessingMode.DONE) {
       if (myObsolescent != null && myObsolescent.isObsolete()) {
         dispatchObsolete();
+        if (myPendingResponses > 0) {
+          // responses to the already written commands must be read anyway
+          myFlexDebugProcess.insertCommand(this);
+        }
         return CommandOutputProcessingMode.DONE;
       }
       ++myCurrentIndex;
@@ -96,8 +127,14 @@ class CompositeDebuggerCommand extends DebuggerCommand {
   @Override
   public String read(FlexDebugProcess flexDebugProcess) throws IOException {
     if (myBecomeObsolete) {
+      for (; myPendingResponses > 0; myPendingResponses--) {
+        flexDebugProcess.defaultReadCommand(this);
+      }
       return "*obsolete*";
     }
+    if (myPendingResponses > 0) {
+      myPendingResponses--;
+    }
     return myCommands[myCurrentIndex].read(flexDebugProcess);
   }
 }
@@ -42,6 +42,15 @@ class DebuggerCommand {
     return myStartVMState;
   }
 
+  /**
+   * Command may be written to fdb together with the following commands of the same {@link CompositeDebuggerCommand} (without waiting
+   * for its response) if it is executed in suspended state, just sends its text, reads one response per each line of the text
+   * and doesn't send other commands while processing the output.
+   */
+  boolean canBePipelined() {
+    return false;
+  }
+
   CommandOutputProcessingMode onTextAvailable(@NonNls String s) {
     assert myOutputProcessingType != CommandOutputProcessingType.NO_PROCESSING;
     return CommandOutputProcessingMode.DONE;
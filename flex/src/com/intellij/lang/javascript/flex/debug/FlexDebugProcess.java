@@ -74,6 +74,7 @@ import gnu.trove.THashSet;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
 import org.jetbrains.io.LocalFileFinder;
 
 import javax.swing.event.HyperlinkEvent;
@@ -284,6 +285,34 @@ public class FlexDebugProcess extends XDebugProcess {
     startCommandProcessingThread();
   }
 
+  /**
+   * Talks to the given process instead of fdb, commands are processed in the calling thread by {@link #processCommandsForTest()}.
+   * The debugger is considered suspended after startup.
+   */
+  @TestOnly
+  FlexDebugProcess(@NotNull final XDebugSession session, @NotNull final Process fdbProcess, @NotNull final String debuggerVersion) {
+    super(session);
+    myModule = null;
+    myBC = null;
+    myRunnerParameters = null;
+    myAppSdkHome = null;
+    myDebuggerSdkHome = null;
+    myDebuggerVersion = debuggerVersion;
+    myBreakpointsHandler = new FlexBreakpointsHandler(this);
+    this.fdbProcess = fdbProcess;
+    reader = new MyFdbOutputReader(fdbProcess.getInputStream());
+    myDebuggerManagerThread = Thread.currentThread();
+    debugSessionInitialized = true;
+    suspended = true;
+  }
+
+  @TestOnly
+  void processCommandsForTest() throws IOException, InterruptedException {
+    while (!commandsToWrite.isEmpty()) {
+      processOneCommandLoop();
+    }
+  }
+
   @Nullable
   public Module getModule() {
     return myModule.isDisposed() ? null : myModule;
@@ -999,8 +1028,10 @@ public class FlexDebugProcess extends XDebugProcess {
   }
 
   void doSendCommandText(final DebuggerCommand command) throws IOException {
-    final String text = command.getText();
+    doSendCommandText(command, command.getText());
+  }
 
+  void doSendCommandText(final DebuggerCommand command, final String text) throws IOException {
     setSuspended(
       command.getOutputProcessingMode() == CommandOutputProcessingType.NO_PROCESSING && command.getEndVMState() == VMState.SUSPENDED);
     log("Sent:" + text);
@@ -13,6 +13,7 @@ import com.intellij.openapi.util.Computable;
 import com.intellij.openapi.util.NullableComputable;
 import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.Ref;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.*;
 import com.intellij.psi.impl.source.tree.injected.InjectedLanguageUtil;
@@ -20,6 +21,7 @@ import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.psi.xml.XmlFile;
 import com.intellij.ui.ColoredTextContainer;
 import com.intellij.ui.SimpleTextAttributes;
+import com.intellij.util.containers.ContainerUtil;
 import com.intellij.xdebugger.XDebuggerUtil;
 import com.intellij.xdebugger.XSourcePosition;
 import com.intellij.xdebugger.evaluation.ExpressionInfo;
@@ -51,6 +53,7 @@ public class FlexStackFrame extends XStackFrame {
   private final XDebuggerEvaluator myXDebuggerEvaluator = new FlexDebuggerEvaluator();
   private String myScope = UNKNOWN_SCOPE;
   private int myFrameIndex;
+  @Nullable private FlexSuspendContext mySuspendContext;
   @NonNls protected static final String UNKNOWN_SCOPE = "<unknown>";
   static final String CLASS_MARKER = ", class='";
   static final String CANNOT_EVALUATE_EXPRESSION = "Cannot evaluate expression: ";
@@ -81,9 +84,17 @@ public class FlexStackFrame extends XStackFrame {
   @Override
   public void computeChildren(@NotNull final XCompositeNode node) {
     List<DebuggerCommand> commands = new ArrayList<>();
-    commands.add(new MyDebuggerCommand("print this", node, true, FlexValue.ValueType.This));
-    commands.add(new MyDebuggerCommand("info arguments", node, false, FlexValue.ValueType.Parameter));
-    commands.add(new MyDebuggerCommand("info locals", node, false, FlexValue.ValueType.Variable));
+    final List<MyDebuggerCommand> valueCommands =
+      Arrays.asList(new MyDebuggerCommand("print this", node, true, FlexValue.ValueType.This),
+                    new MyDebuggerCommand("info arguments", node, false, FlexValue.ValueType.Parameter),
+                    new MyDebuggerCommand("info locals", node, false, FlexValue.ValueType.Variable));
+    // replay all or none: "info arguments" and "info locals" rely on the frame switched by "print this"
+    if (!ContainerUtil.and(valueCommands, MyDebuggerCommand::useCachedResponses)) {
+      for (MyDebuggerCommand command : valueCommands) {
+        command.dropCachedResponses();
+      }
+    }
+    commands.addAll(valueCommands);
     //commands.add(new MyDebuggerCommand("info variables", node, false));
 
     if (mySourcePosition != null) {
@@ -182,6 +193,26 @@ public class FlexStackFrame extends XStackFrame {
     );
   }
 
+  @Nullable
+  FlexSuspendContext getSuspendContext() {
+    return mySuspendContext;
+  }
+
+  void setSuspendContext(@Nullable FlexSuspendContext suspendContext) {
+    mySuspendContext = suspendContext;
+  }
+
+  // "info locals" and "info arguments" are sent without the frame command, so the frame is a part of the key
+  private String getResponsesKey(@NotNull String commandText) {
+    return myFrameIndex + ":" + commandText;
+  }
+
+  private void clearCachedResponses() {
+    if (mySuspendContext != null) {
+      mySuspendContext.clearCachedResponses();
+    }
+  }
+
   private String addFrameOffset(String text) {
     text="frame " + (myFrameIndex != 0 ? myFrameIndex: "")+ "\n"+text;
     return text;
@@ -264,23 +295,111 @@ public class FlexStackFrame extends XStackFrame {
     });
   }
 
-  class EvaluateCommand extends DebuggerCommand {
+  /**
+   * Command which only reads values. Its fdb responses are kept in {@link FlexSuspendContext} till resume,
+   * the same command of this frame replays them instead of being sent again.
+   */
+  abstract class ReadValuesCommand extends DebuggerCommand {
+    private final List<String> myResponses = new ArrayList<>(2);
+    private @Nullable List<String> myCachedResponses;
+    private int myCachedResponseIndex;
+
+    ReadValuesCommand(@NotNull @NonNls String text) {
+      super(text, CommandOutputProcessingType.SPECIAL_PROCESSING);
+    }
+
+    boolean useCachedResponses() {
+      myCachedResponses = mySuspendContext == null ? null : mySuspendContext.getCachedResponses(getResponsesKey(getText()));
+      return myCachedResponses != null;
+    }
+
+    void dropCachedResponses() {
+      myCachedResponses = null;
+    }
+
+    boolean hasCachedResponses() {
+      return myCachedResponses != null;
+    }
+
+    /**
+     * Called when all responses are processed and they may be replayed to the same command.
+     */
+    void cacheResponses() {
+      if (myCachedResponses == null && mySuspendContext != null) {
+        mySuspendContext.cacheResponses(getResponsesKey(getText()), new ArrayList<>(myResponses));
+      }
+    }
+
+    @Override
+    public void post(FlexDebugProcess flexDebugProcess) throws IOException {
+      if (myCachedResponses != null && mySuspendContext.getCachedResponses(getResponsesKey(getText())) != myCachedResponses) {
+        // the cache has been cleared by a command with side effects after these responses were taken
+        myCachedResponses = null;
+      }
+      if (myCachedResponses == null) {
+        super.post(flexDebugProcess);
+      }
+    }
+
+    @Override
+    public String read(FlexDebugProcess flexDebugProcess) throws IOException {
+      if (myCachedResponses != null) {
+        return myCachedResponseIndex < myCachedResponses.size() ? myCachedResponses.get(myCachedResponseIndex++) : null;
+      }
+      final String response = super.read(flexDebugProcess);
+      if (response != null) myResponses.add(response);
+      return response;
+    }
+  }
+
+  class EvaluateCommand extends ReadValuesCommand {
     private String result;
     private final XDebuggerEvaluator.XEvaluationCallback callback;
     private final String expression;
     private int responseCount;
     private boolean myFinished;
+    private boolean myHasStdOutput;
 
     EvaluateCommand(String _expression, final XDebuggerEvaluator.XEvaluationCallback _callback) {
-      super(buildCommandForExpression(_expression), CommandOutputProcessingType.SPECIAL_PROCESSING);
+      super(buildCommandForExpression(_expression));
       expression = _expression;
       callback = _callback;
     }
 
+    /**
+     * fdb really executes assignments, calls and increments, so they may change any value
+     */
+    private boolean hasSideEffects() {
+      if (getText().contains("\nset ")) return true;
+      // toXMLString() requested for the presentation of XML values doesn't change anything
+      final String expressionToCheck = StringUtil.trimEnd(expression, ".toXMLString()");
+      return expressionToCheck.indexOf('(') != -1 || expressionToCheck.contains("++") || expressionToCheck.contains("--");
+    }
+
+    @Override
+    public void post(FlexDebugProcess flexDebugProcess) throws IOException {
+      if (hasSideEffects()) {
+        // values cached by the Variables view, watches and other frames may change
+        clearCachedResponses();
+      }
+      else {
+        // the same expression is often evaluated by Variables view, watches and editor hover
+        useCachedResponses();
+      }
+      super.post(flexDebugProcess);
+    }
+
     @Override
     CommandOutputProcessingMode onTextAvailable(@NonNls String line) {
-      if (myDebugProcess.filterStdResponse(line)) return CommandOutputProcessingMode.PROCEEDING;
-      return proceedWithEvaluationResponse(line);
+      if (myDebugProcess.filterStdResponse(line)) {
+        myHasStdOutput = true;
+        return CommandOutputProcessingMode.PROCEEDING;
+      }
+      final CommandOutputProcessingMode mode = proceedWithEvaluationResponse(line);
+      if (mode == CommandOutputProcessingMode.DONE && !myHasStdOutput && !hasSideEffects()) {
+        cacheResponses();
+      }
+      return mode;
     }
 
     private CommandOutputProcessingMode proceedWithEvaluationResponse(String line) {
@@ -507,7 +626,7 @@ public class FlexStackFrame extends XStackFrame {
     return myQualifiedFunctionName;
   }
 
-  private class MyDebuggerCommand extends DebuggerCommand {
+  private class MyDebuggerCommand extends ReadValuesCommand {
     private final boolean hasFrame;
     private final XValueChildrenList resultChildren;
     private int current;
@@ -515,13 +634,19 @@ public class FlexStackFrame extends XStackFrame {
     private final FlexValue.ValueType myValueType;
 
     public MyDebuggerCommand(String text, XCompositeNode node, boolean _hasFrame, FlexValue.ValueType valueType) {
-      super(_hasFrame ? addFrameOffset(text):text, CommandOutputProcessingType.SPECIAL_PROCESSING);
+      super(_hasFrame ? addFrameOffset(text):text);
       myNode = node;
       resultChildren = new XValueChildrenList(3);
       hasFrame = _hasFrame;
       myValueType = valueType;
     }
 
+    @Override
+    boolean canBePipelined() {
+      // replayed responses must not be mixed with the responses of written commands
+      return !hasCachedResponses();
+    }
+
     @Override
     CommandOutputProcessingMode onTextAvailable(@NonNls final String s) {
       final int offsetIndex = hasFrame ? 1:0; // frame command
@@ -584,6 +709,7 @@ public class FlexStackFrame extends XStackFrame {
       ++current;
 
       if (current == offsetIndex + 1) {
+        cacheResponses();
         myNode.addChildren(resultChildren, false);
         return CommandOutputProcessingMode.DONE;
       } else {
@@ -11,13 +11,16 @@ import com.intellij.xdebugger.XSourcePosition;
 import com.intellij.xdebugger.frame.XExecutionStack;
 import com.intellij.xdebugger.frame.XStackFrame;
 import com.intellij.xdebugger.frame.XSuspendContext;
+import gnu.trove.THashMap;
 import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -25,16 +28,37 @@ public class FlexSuspendContext extends XSuspendContext {
   private final FlexExecutionStack myFlexExecutionStack;
   private static final Pattern STACK_FRAMES_DELIMITER = Pattern.compile(".(\\r?\\n)#\\d+ ");
   private static final String AT_MARKER = "at ";
+  // fdb responses to the commands of all frames which only read values, see FlexStackFrame.ReadValuesCommand
+  private final Map<String, List<String>> myCachedResponses = new THashMap<>();
 
   public FlexSuspendContext(final FlexStackFrame topFrame) {
+    topFrame.setSuspendContext(this);
     myFlexExecutionStack = new FlexExecutionStack(topFrame);
   }
 
   public FlexSuspendContext(final FlexDebugProcess flexDebugProcess, final String[] frames) {
-    myFlexExecutionStack = new FlexExecutionStack(createStackFrame(flexDebugProcess, frames[0]));
+    final FlexStackFrame topFrame = createStackFrame(flexDebugProcess, frames[0]);
+    topFrame.setSuspendContext(this);
+    myFlexExecutionStack = new FlexExecutionStack(topFrame);
     myFlexExecutionStack.myAprioriKnownFrames = myFlexExecutionStack.getFrames(frames);
   }
 
+  @Nullable
+  synchronized List<String> getCachedResponses(@NotNull String key) {
+    return myCachedResponses.get(key);
+  }
+
+  synchronized void cacheResponses(@NotNull String key, @NotNull List<String> responses) {
+    myCachedResponses.put(key, responses);
+  }
+
+  /**
+   * Called when a command may have changed values: an assignment or a call evaluated in any frame
+   */
+  synchronized void clearCachedResponses() {
+    myCachedResponses.clear();
+  }
+
   public XExecutionStack getActiveExecutionStack() {
     return myFlexExecutionStack;
   }
@@ -91,6 +115,7 @@ public class FlexSuspendContext extends XSuspendContext {
         final FlexStackFrame flexStackFrame = createStackFrame(flexDebugProcess, frameText);
 
         allFrames[i] = flexStackFrame;
+        flexStackFrame.setSuspendContext(myTopFrame.getSuspendContext());
         flexStackFrame.setScope(extractScope(frameText));
         flexStackFrame.setFrameIndex(i);
         i++;
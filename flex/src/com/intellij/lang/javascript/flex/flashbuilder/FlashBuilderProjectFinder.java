@@ -1,6 +1,7 @@
 package com.intellij.lang.javascript.flex.flashbuilder;
 
 import com.intellij.CommonBundle;
+import com.intellij.concurrency.JobLauncher;
 import com.intellij.lang.javascript.flex.FlexBundle;
 import com.intellij.openapi.options.ConfigurationException;
 import com.intellij.openapi.progress.ProgressIndicator;
@@ -9,13 +10,15 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.io.FileUtilRt;
 import com.intellij.openapi.vfs.VfsUtil;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.Consumer;
+import com.intellij.util.containers.ContainerUtil;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.*;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.Enumeration;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -56,27 +59,42 @@ public class FlashBuilderProjectFinder {
   }
 
   static boolean collectAllProjectPaths(final @Nullable Project project, final List<String> projectPaths, final String dirPath) {
-    final Runnable runnable = () -> {
-      if (isFlashBuilderWorkspace(dirPath)) {
-        collectProjectPathsInWorkspace(projectPaths, dirPath);
-      }
-      else {
-        collectProjectPathsInDirectory(projectPaths, dirPath);
-      }
-    };
+    final Runnable runnable = () -> collectProjectPaths(projectPaths, dirPath);
 
     return ProgressManager.getInstance()
       .runProcessWithProgressSynchronously(runnable, FlexBundle.message("looking.for.flash.builder.projects"), true, project);
   }
 
+  /**
+   * Paths of .project files of Flash Builder projects from the workspace or from the directory and its subdirectories.
+   * Project directories are checked concurrently, as workspaces may contain hundreds of projects, possibly on a network drive.
+   */
+  public static void collectProjectPaths(final List<String> projectPaths, final String dirPath) {
+    if (isFlashBuilderWorkspace(dirPath)) {
+      collectProjectPathsInWorkspace(projectPaths, dirPath);
+    }
+    else {
+      collectProjectPathsInDirectory(projectPaths, dirPath);
+    }
+  }
+
   private static void collectProjectPathsInWorkspace(final List<String> projectPaths, final String workspacePath) {
     final File projectsCacheDir = new File(workspacePath, PROJECTS_CACHE_RELATIVE_PATH);
     if (!projectsCacheDir.isDirectory()) return;
 
     final File[] subdirs = projectsCacheDir.listFiles(FileUtilRt.ALL_DIRECTORIES);
+    if (subdirs == null) return;
 
-    for (File dir : subdirs) {
+    final Map<File, String> dirToDotProjectFileLocation = ContainerUtil.newConcurrentMap();
+    processConcurrently(Arrays.asList(subdirs), dir -> {
       final String dotProjectFileLocation = getDotProjectFileLocation(workspacePath, dir);
+      if (dotProjectFileLocation != null) {
+        dirToDotProjectFileLocation.put(dir, dotProjectFileLocation);
+      }
+    });
+
+    for (File dir : subdirs) {
+      final String dotProjectFileLocation = dirToDotProjectFileLocation.get(dir);
       if (dotProjectFileLocation != null) {
         projectPaths.add(dotProjectFileLocation);
       }
@@ -93,9 +111,7 @@ public class FlashBuilderProjectFinder {
 
     final File dotLocationFile = new File(projectCacheDir + "/" + DOT_LOCATION);
     if (dotLocationFile.isFile()) {
-      DataInputStream input = null;
-      try {
-        input = new DataInputStream(new FileInputStream(dotLocationFile));
+      try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(dotLocationFile)))) {
         final int CHUNK_START_LENGTH = 16;
         final String URI_PREFIX = "URI//";
 
@@ -113,14 +129,6 @@ public class FlashBuilderProjectFinder {
       }
       catch (IOException e) {/*ignore*/}
       catch (URISyntaxException e) {/*ignore*/}
-      finally {
-        if (input != null) {
-          try {
-            input.close();
-          }
-          catch (IOException e) {/*ignore*/}
-        }
-      }
     }
 
     // this code is reached if no information was found in '.location' file. It means default project location.
@@ -132,26 +140,46 @@ public class FlashBuilderProjectFinder {
     return null;
   }
 
+  // directories are walked level by level, all directories of a level are checked concurrently
   private static void collectProjectPathsInDirectory(final List<String> projectPaths, final String dirPath) {
     final ProgressIndicator progressIndicator = ProgressManager.getInstance().getProgressIndicator();
-    if (progressIndicator != null) {
-      progressIndicator.checkCanceled();
-      progressIndicator.setText2(dirPath);
-    }
 
-    final File dotProjectFile = new File(dirPath, FlashBuilderImporter.DOT_PROJECT);
-    if (isFlashBuilderProject(dotProjectFile)) {
-      projectPaths.add(dotProjectFile.getPath());
-    }
-    else {
-      final File root = new File(dirPath);
-      final File[] subdirs = root.listFiles(FileUtilRt.ALL_DIRECTORIES);
-      for (final File subdir : subdirs) {
-        collectProjectPathsInDirectory(projectPaths, subdir.getPath());
-      }
+    List<File> dirs = Collections.singletonList(new File(dirPath));
+    while (!dirs.isEmpty()) {
+      final Queue<String> dotProjectFilePaths = new ConcurrentLinkedQueue<>();
+      final Queue<File> subdirs = new ConcurrentLinkedQueue<>();
+
+      processConcurrently(dirs, dir -> {
+        if (progressIndicator != null) {
+          progressIndicator.checkCanceled();
+          progressIndicator.setText2(dir.getPath());
+        }
+
+        final File dotProjectFile = new File(dir, FlashBuilderImporter.DOT_PROJECT);
+        if (isFlashBuilderProject(dotProjectFile)) {
+          dotProjectFilePaths.add(dotProjectFile.getPath());
+        }
+        else {
+          final File[] children = dir.listFiles(FileUtilRt.ALL_DIRECTORIES);
+          if (children != null) {
+            Collections.addAll(subdirs, children);
+          }
+        }
+      });
+
+      projectPaths.addAll(ContainerUtil.sorted(dotProjectFilePaths));
+      dirs = new ArrayList<>(subdirs);
     }
   }
 
+  private static <T> void processConcurrently(final List<T> items, final Consumer<T> consumer) {
+    final ProgressIndicator progressIndicator = ProgressManager.getInstance().getProgressIndicator();
+    JobLauncher.getInstance().invokeConcurrentlyUnderProgress(items, progressIndicator, false, item -> {
+      consumer.consume(item);
+      return true;
+    });
+  }
+
   static boolean hasArchiveExtension(final String path) {
     return path.endsWith(FlashBuilderImporter.DOT_FXP) ||
            path.endsWith(FlashBuilderImporter.DOT_FXPL) ||
@@ -25,10 +25,12 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.*;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.CharsetToolkit;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.ui.UIBundle;
 import com.intellij.util.ResourceUtil;
+import com.intellij.util.containers.ContainerUtil;
 import gnu.trove.THashSet;
 import org.jetbrains.annotations.Nullable;
 
@@ -39,12 +41,11 @@ import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 public class FlexUnitPrecompileTask implements CompileTask {
 
-  public static final Key<Collection<String>> FILES_TO_DELETE = Key.create("FlexUnitPrecompileTask.filesToRemove");
-
   private final Project myProject;
   private static final String TEST_RUNNER_VAR = "__testRunner";
 
@@ -246,10 +247,7 @@ public class FlexUnitPrecompileTask implements CompileTask {
         }
 
         flexUnit4 = support.flexUnit4Present;
-        for (Pair<String, Set<String>> classAndRunner : classes) {
-          generateImportCode(imports, classAndRunner.first, classAndRunner.second);
-          generateTestClassCode(code, classAndRunner.first, classAndRunner.second, false);
-        }
+        generateTestClassesCode(imports, code, classes);
       }
       break;
       default:
@@ -304,17 +302,30 @@ public class FlexUnitPrecompileTask implements CompileTask {
 
     final String fileName = FlexCommonUtils.FLEX_UNIT_LAUNCHER + FlexCommonUtils.getFlexUnitLauncherExtension(bc.getNature());
     final File launcherFile = new File(tmpDir, fileName);
-    FileUtil.delete(launcherFile);
 
     try {
-      FileUtil.writeToFile(launcherFile, launcherText);
+      writeLauncherIfChanged(launcherFile, launcherText);
     }
     catch (IOException e) {
       context.addMessage(CompilerMessageCategory.ERROR, e.getMessage(), null, -1, -1);
       return false;
     }
 
-    context.putUserData(FILES_TO_DELETE, Collections.singletonList(launcherFile.getPath()));
+    return true;
+  }
+
+  /**
+   * The launcher is kept between runs and rewritten only if its text differs, i.e. if the set of tests or runner parameters has
+   * changed. FlexBuilder doesn't recompile FlexUnit swf that is newer than the launcher unless some sources are dirty.
+   *
+   * @return <code>true</code> if the file has been (re)written
+   */
+  public static boolean writeLauncherIfChanged(final File launcherFile, final String launcherText) throws IOException {
+    if (launcherFile.isFile() && launcherText.equals(FileUtil.loadFile(launcherFile, CharsetToolkit.UTF8_CHARSET))) {
+      return false;
+    }
+
+    FileUtil.writeToFile(launcherFile, launcherText);
     return true;
   }
 
@@ -341,11 +352,23 @@ public class FlexUnitPrecompileTask implements CompileTask {
     }
   }
 
+  /**
+   * Classes and their custom runners are sorted, so the same tests always give the same launcher text whatever the index order is.
+   */
+  public static void generateTestClassesCode(StringBuilder imports, StringBuilder code, Collection<Pair<String, Set<String>>> classes) {
+    final List<Pair<String, Set<String>>> sortedClasses = new ArrayList<>(classes);
+    Collections.sort(sortedClasses, (c1, c2) -> c1.first.compareTo(c2.first));
+    for (Pair<String, Set<String>> classAndRunner : sortedClasses) {
+      generateImportCode(imports, classAndRunner.first, classAndRunner.second);
+      generateTestClassCode(code, classAndRunner.first, classAndRunner.second, false);
+    }
+  }
+
   private static void generateImportCode(StringBuilder imports, String className, Collection<String> customRunners) {
     if (!StringUtil.isEmpty(StringUtil.getPackageName(className))) {
       generateImportCode(imports, className);
     }
-    for (String customRunner : customRunners) {
+    for (String customRunner : ContainerUtil.sorted(customRunners)) {
       generateImportCode(imports, customRunner);
     }
   }
@@ -372,7 +395,7 @@ public class FlexUnitPrecompileTask implements CompileTask {
 
   private static void generateReferences(StringBuilder code, String className, Collection<String> classes) {
     int i = 1;
-    for (String qname : classes) {
+    for (String qname : ContainerUtil.sorted(classes)) {
       code.append("var __ref_").append(className.replace(".", "_")).append("_").append(i++).append("_ : ").append(qname).append(";\n");
     }
   }
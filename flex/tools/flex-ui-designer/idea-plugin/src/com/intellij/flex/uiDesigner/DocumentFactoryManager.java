@@ -9,18 +9,22 @@ import com.intellij.openapi.fileEditor.FileDocumentManager;
 import com.intellij.openapi.fileEditor.FileDocumentManagerAdapter;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.project.ProjectUtil;
+import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.xml.XmlFile;
 import com.intellij.util.Consumer;
+import gnu.trove.THashMap;
 import gnu.trove.TObjectObjectProcedure;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.io.Info;
 import org.jetbrains.io.InfoMap;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 public class DocumentFactoryManager {
   private final InfoMap<VirtualFile, DocumentInfo> files = new InfoMap<>();
@@ -116,6 +120,9 @@ public class DocumentFactoryManager {
 
     private List<RangeMarker> rangeMarkers;
 
+    // encoded values of properties and styles sent to the client by incremental updates since the last render
+    private final Map<String, Pair<String, byte[]>> sentPropertyValues = new THashMap<>();
+
     public RangeMarker getRangeMarker(int id) {
       return rangeMarkers.get(id);
     }
@@ -138,6 +145,43 @@ public class DocumentFactoryManager {
     public void setRangeMarkers(List<RangeMarker> rangeMarkers) {
       disposeRangeMarkers();
       this.rangeMarkers = rangeMarkers;
+      synchronized (sentPropertyValues) {
+        sentPropertyValues.clear();
+      }
+    }
+
+    /**
+     * Attribute is a key, not the applied property name - "50%" and "50" of width are applied as percentWidth and width,
+     * but the client keeps only the last one, so they must replace each other.
+     * @return true if exactly the same value has already been sent since the last render, so there is no need to send it again
+     */
+    public boolean isPropertyValueSent(int componentId, String attributeName, boolean isStyle, String appliedName, byte[] value) {
+      synchronized (sentPropertyValues) {
+        final Pair<String, byte[]> sentValue = sentPropertyValues.get(getPropertyKey(componentId, attributeName, isStyle));
+        return sentValue != null && sentValue.first.equals(appliedName) && Arrays.equals(sentValue.second, value);
+      }
+    }
+
+    /**
+     * Remembers the encoded value of the attribute of the component, must be called only after the client has received it.
+     */
+    public void propertyValueSent(int componentId, String attributeName, boolean isStyle, String appliedName, byte[] value) {
+      synchronized (sentPropertyValues) {
+        sentPropertyValues.put(getPropertyKey(componentId, attributeName, isStyle), Pair.create(appliedName, value));
+      }
+    }
+
+    /**
+     * The client may have got nothing or only a part of the value, so the next update of the attribute must be sent in any case.
+     */
+    public void propertyValueNotSent(int componentId, String attributeName, boolean isStyle) {
+      synchronized (sentPropertyValues) {
+        sentPropertyValues.remove(getPropertyKey(componentId, attributeName, isStyle));
+      }
+    }
+
+    private static String getPropertyKey(int componentId, String attributeName, boolean isStyle) {
+      return componentId + (isStyle ? ":s:" : ":p:") + attributeName;
     }
 
     public void disposeRangeMarkers() {
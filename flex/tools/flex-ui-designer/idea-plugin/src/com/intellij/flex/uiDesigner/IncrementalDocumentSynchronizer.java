@@ -17,6 +17,8 @@ import com.intellij.lang.javascript.flex.AnnotationBackedDescriptor;
 import com.intellij.lang.javascript.psi.JSCommonTypeNames;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.util.ActionCallback;
+import com.intellij.openapi.util.Computable;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.*;
 import com.intellij.psi.css.StylesheetFile;
@@ -177,6 +179,31 @@ final class IncrementalDocumentSynchronizer extends Update {
     designerManager.renderIfNeed(xmlFile, null);
   }
 
+  /**
+   * PSI changes that don't affect the value (whitespace, quotes) produce the same bytes, the client already has them.
+   * The value is remembered only when the client has received it - if sending fails, the next identical update is not skipped.
+   * @param force the message carries new strings, the client must get them even if the value is the same
+   * @return null if the value is not sent
+   */
+  @Nullable
+  static ActionCallback sendPropertyValue(final DocumentInfo info,
+                                          final int componentId,
+                                          final String attributeName,
+                                          final boolean isStyle,
+                                          final String appliedName,
+                                          final byte[] value,
+                                          boolean force,
+                                          Computable<ActionCallback> sender) {
+    if (!force && info.isPropertyValueSent(componentId, attributeName, isStyle, appliedName, value)) {
+      return null;
+    }
+
+    final ActionCallback callback = sender.compute();
+    callback.doWhenDone(() -> info.propertyValueSent(componentId, attributeName, isStyle, appliedName, value));
+    callback.doWhenRejected(() -> info.propertyValueNotSent(componentId, attributeName, isStyle));
+    return callback;
+  }
+
   private boolean incrementalSync(final DocumentInfo info) {
     final XmlElementValueProvider valueProvider = findSupportedTarget();
     if (valueProvider == null) {
@@ -204,11 +231,13 @@ final class IncrementalDocumentSynchronizer extends Update {
       return true;
     }
 
-    final StringRegistry.StringWriter stringWriter = new StringRegistry.StringWriter();
+    // usually only the property name and value strings are written, don't allocate default 1KB buffer for each keystroke
+    final StringRegistry.StringWriter stringWriter = new StringRegistry.StringWriter(64);
     //noinspection IOResourceOpenedButNotSafelyClosed
     final PrimitiveAmfOutputStream dataOut = new PrimitiveAmfOutputStream(new ByteArrayOutputStreamEx(16));
     PrimitiveWriter writer = new PrimitiveWriter(dataOut, stringWriter);
     boolean needRollbackStringWriter = true;
+    final String name;
     try {
       if (descriptor.isAllowsPercentage()) {
         String value = valueProvider.getTrimmed();
@@ -217,7 +246,6 @@ final class IncrementalDocumentSynchronizer extends Update {
           return true;
         }
 
-        final String name;
         if (hasPercent) {
           name = descriptor.getPercentProxy();
           value = value.substring(0, value.length() - 1);
@@ -230,7 +258,8 @@ final class IncrementalDocumentSynchronizer extends Update {
         dataOut.writeAmfDouble(value);
       }
       else {
-        stringWriter.write(descriptor.getName(), dataOut);
+        name = descriptor.getName();
+        stringWriter.write(name, dataOut);
         if (!writer.writeIfApplicable(valueProvider, dataOut, descriptor)) {
           needRollbackStringWriter = false;
           stringWriter.rollback();
@@ -252,11 +281,20 @@ final class IncrementalDocumentSynchronizer extends Update {
       }
     }
 
-    Client.getInstance().updatePropertyOrStyle(info.getId(), componentId, stream -> {
-      stringWriter.writeTo(stream);
-      stream.write(descriptor.isStyle());
-      dataOut.writeTo(stream);
-    }).doWhenDone(() -> DesignerApplicationManager.createDocumentRenderedNotificationDoneHandler(true).consume(info));
+    final byte[] value = dataOut.getByteArrayOut().toByteArray();
+    final ActionCallback callback =
+      sendPropertyValue(info, componentId, descriptor.getName(), descriptor.isStyle(), name, value, stringWriter.hasChanges(),
+                        () -> Client.getInstance().updatePropertyOrStyle(info.getId(), componentId, stream -> {
+                          stringWriter.writeTo(stream);
+                          stream.write(descriptor.isStyle());
+                          dataOut.writeTo(stream);
+                        }));
+    if (callback == null) {
+      stringWriter.rollback();
+    }
+    else {
+      callback.doWhenDone(() -> DesignerApplicationManager.createDocumentRenderedNotificationDoneHandler(true).consume(info));
+    }
 
     return true;
   }
@@ -23,6 +23,7 @@ import com.intellij.openapi.roots.ModuleRootListener;
 import com.intellij.openapi.util.Condition;
 import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.CharsetToolkit;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiManager;
 import com.intellij.util.ArrayUtil;
@@ -38,11 +39,16 @@ import org.jetbrains.io.RetainCondition;
 import java.io.File;
 import java.io.IOException;
 import java.nio.channels.ClosedByInterruptException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.regex.Pattern;
 
 @SuppressWarnings("MethodMayBeStatic")
 public class LibraryManager implements Disposable {
   private static final String SWF_EXTENSION = ".swf";
+  // modification time of the SWC entries, changes on every rebuild of the SWC
+  private static final Pattern CATALOG_MOD_ATTRIBUTE = Pattern.compile("\\smod=\"[^\"]*\"");
   static final String PROPERTIES_EXTENSION = ".properties";
 
   private final File appDir;
@@ -232,7 +238,7 @@ public class LibraryManager implements Disposable {
       }
 
       for (VirtualFile file : files) {
-        stringBuilder.append(file.getTimeStamp()).append(file.getPath()).append(':');
+        stringBuilder.append(getContentHash(file)).append(file.getPath()).append(':');
       }
 
       return stringBuilder.toString();
@@ -242,15 +248,41 @@ public class LibraryManager implements Disposable {
     }
   }
 
+  /**
+   * SWC catalog contains digest of library.swf, so, SWC rebuilt with the same content (or copied, or checked out again) doesn't invalidate
+   * merged library set — unlike SWC timestamp. Entry modification times are stripped from the catalog before hashing.
+   */
+  private static String getContentHash(VirtualFile file) {
+    final VirtualFile catalogFile = Library.getCatalogFile(file);
+    if (catalogFile != null) {
+      try {
+        final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+        final String catalog = new String(catalogFile.contentsToByteArray(), CharsetToolkit.UTF8_CHARSET);
+        final String stableCatalog = CATALOG_MOD_ATTRIBUTE.matcher(catalog).replaceAll("");
+        return StringUtil.toHexString(digest.digest(stableCatalog.getBytes(CharsetToolkit.UTF8_CHARSET)));
+      }
+      catch (IOException e) {
+        LogMessageUtil.LOG.warn(e);
+      }
+      catch (NoSuchAlgorithmException e) {
+        LogMessageUtil.LOG.error(e);
+      }
+    }
+
+    return Long.toString(file.getTimeStamp());
+  }
+
   @NotNull
   private SortResult sortLibraries(LibrarySorter sorter, LibraryCollector collector, Condition<String> isExternal, String key, boolean isSdk)
     throws InitException {
     final List<Library> libraries = isSdk ? collector.sdkLibraries : collector.externalLibraries;
     try {
       final int id = data.librarySets.enumerate(key);
+      final File outFile = new File(appDir, LibrariesData.NAME_PREFIX + Integer.toString(id) + SWF_EXTENSION);
       SortResult result = data.librarySets.get(key);
-      if (result == null) {
-        result = sorter.sort(libraries, new File(appDir, LibrariesData.NAME_PREFIX + Integer.toString(id) + SWF_EXTENSION), isExternal, isSdk);
+      // merged SWF could be deleted (system dir cleanup), but cached sort result is useless without it
+      if (result == null || !outFile.exists()) {
+        result = sorter.sort(libraries, outFile, isExternal, isSdk);
         data.librarySets.put(key, result);
       }
       else {
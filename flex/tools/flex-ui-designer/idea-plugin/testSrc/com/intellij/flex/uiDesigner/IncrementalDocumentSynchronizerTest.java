@@ -0,0 +1,94 @@
+package com.intellij.flex.uiDesigner;
+
+import com.intellij.openapi.util.ActionCallback;
+import com.intellij.testFramework.LightVirtualFile;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.intellij.flex.uiDesigner.DocumentFactoryManager.DocumentInfo;
+import static com.intellij.flex.uiDesigner.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class IncrementalDocumentSynchronizerTest {
+  private static final int COMPONENT_ID = 1;
+
+  private DocumentInfo info;
+  private final List<String> emitted = new ArrayList<>();
+  private final List<ActionCallback> callbacks = new ArrayList<>();
+
+  @Before
+  public void runBeforeEveryTest() {
+    info = new DocumentInfo(new LightVirtualFile("a.mxml"));
+    emitted.clear();
+    callbacks.clear();
+  }
+
+  // attribute value is passed as is, PSI changes that don't affect the value (whitespace, quotes) produce the same bytes
+  private ActionCallback edit(String attributeName, String appliedName, String value) {
+    return IncrementalDocumentSynchronizer.sendPropertyValue(info, COMPONENT_ID, attributeName, false, appliedName, value.getBytes(),
+                                                             false, () -> {
+        emitted.add(appliedName + '=' + value);
+        ActionCallback callback = new ActionCallback();
+        callbacks.add(callback);
+        return callback;
+      });
+  }
+
+  @Test
+  public void skipSentValue() {
+    edit("width", "width", "50").setDone();
+    edit("width", "width", "50");
+    edit("width", "width", "60").setDone();
+    edit("width", "width", "60");
+    // "50%" of width is applied as percentWidth and replaces width on the client
+    edit("width", "percentWidth", "50").setDone();
+    edit("width", "width", "50").setDone();
+    edit("width", "width", "50");
+
+    assertThat(emitted, contains("width=50", "width=60", "percentWidth=50", "width=50"));
+  }
+
+  @Test
+  public void resendAfterFailure() {
+    edit("width", "width", "50").setRejected();
+    edit("width", "width", "50").setDone();
+    edit("width", "width", "50");
+
+    assertThat(emitted, contains("width=50", "width=50"));
+  }
+
+  @Test
+  public void resendUntilReceived() {
+    edit("width", "width", "50");
+    // the client hasn't answered yet
+    edit("width", "width", "50");
+    callbacks.get(0).setDone();
+    callbacks.get(1).setDone();
+    edit("width", "width", "50");
+
+    assertThat(emitted, contains("width=50", "width=50"));
+  }
+
+  @Test
+  public void resendWithNewStrings() {
+    edit("width", "width", "50").setDone();
+    IncrementalDocumentSynchronizer.sendPropertyValue(info, COMPONENT_ID, "width", false, "width", "50".getBytes(), true, () -> {
+      emitted.add("forced");
+      return new ActionCallback();
+    });
+
+    assertThat(emitted, contains("width=50", "forced"));
+  }
+
+  @Test
+  public void forgetOnRender() {
+    edit("width", "width", "50").setDone();
+    info.setRangeMarkers(new ArrayList<>());
+    edit("width", "width", "50");
+
+    assertThat(emitted, contains("width=50", "width=50"));
+  }
+}
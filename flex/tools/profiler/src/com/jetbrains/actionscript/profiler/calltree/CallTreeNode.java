@@ -86,9 +86,13 @@ class CallTreeNode implements FrameInfoProducer, FilePathProducer {
     return frameInfo.toString() + " (" + children.size() + ")";
   }
 
-  public void addChildren(List<FrameInfo> reversedFrames, long duration) {
+  /**
+   * @param frames call stack, innermost frame first
+   */
+  public void addChildren(FrameInfo[] frames, long duration) {
     CallTreeNode node = this;
-    for (FrameInfo frame : reversedFrames) {
+    for (int i = frames.length - 1; i >= 0; i--) {
+      final FrameInfo frame = frames[i];
       CallTreeNode child = node.findChildByName(frame);
       if (child == null) {
         child = new CallTreeNode(frame, 0);
@@ -5,15 +5,15 @@ import com.intellij.lang.javascript.psi.JSCommonTypeNames;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.diagnostic.Logger;
 import com.jetbrains.actionscript.profiler.sampler.*;
+import gnu.trove.THashMap;
+import gnu.trove.TObjectHashingStrategy;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.*;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Map;
+import java.util.*;
 
 /**
  * User: Maxim
@@ -274,6 +274,27 @@ public class ProfilingConnection {
            "</cross-domain-policy>\0";
   }
 
+  // FrameInfo instances are shared by FrameInfoBuilder, so stacks are compared by identity of frames
+  private static final TObjectHashingStrategy<FrameInfo[]> FRAMES_HASHING_STRATEGY = new TObjectHashingStrategy<FrameInfo[]>() {
+    @Override
+    public int computeHashCode(FrameInfo[] frames) {
+      int hash = frames.length;
+      for (FrameInfo frame : frames) {
+        hash = 31 * hash + System.identityHashCode(frame);
+      }
+      return hash;
+    }
+
+    @Override
+    public boolean equals(FrameInfo[] frames1, FrameInfo[] frames2) {
+      if (frames1.length != frames2.length) return false;
+      for (int i = 0; i < frames1.length; i++) {
+        if (frames1[i] != frames2[i]) return false;
+      }
+      return true;
+    }
+  };
+
   static class BatchSamplesProcessor extends PacketProcessor {
     private static final String BATCH_MARKER = "b\0";
     private static final String SAMPLE_MARKER = "s\0";
@@ -285,7 +306,11 @@ public class ProfilingConnection {
     private long sampleDuration = -1;
     private int frameIndex;
 
-    private final Map<String, String> dictionary = new HashMap<>(1000);
+    // frames are sent once and then referenced by their 1-based number
+    private final List<FrameInfo> frameDictionary = new ArrayList<>(1000);
+    // equal allocation stacks share one array; stacks are never removed until the profiling state is cleared,
+    // their number is bounded by the distinct allocation sites of the application rather than by the number of samples
+    private final Map<FrameInfo[], FrameInfo[]> allocationStacks = new THashMap<>(FRAMES_HASHING_STRATEGY);
     private final Map<String, String> typeDictionary = new HashMap<>(1000);
     private FrameInfo[] frames;
     private String type;
@@ -342,13 +367,13 @@ public class ProfilingConnection {
         }
         else {
           if (Character.isDigit(ch)) {
-            output = dictionary.get(output);
+            frames[frameIndex++] = frameDictionary.get(Integer.parseInt(output) - 1);
           }
           else {
-            dictionary.put("" + (dictionary.size() + 1), output);
+            final FrameInfo frameInfo = frameInfoBuilder.buildInstance(output);
+            frameDictionary.add(frameInfo);
+            frames[frameIndex++] = frameInfo;
           }
-
-          frames[frameIndex++] = frameInfoBuilder.buildInstance(output);
         }
         return maybeFinishSample();
       }
@@ -372,7 +397,7 @@ public class ProfilingConnection {
           final int size = Integer.parseInt(specialArgs.substring(endIndex2 + 1));
           sample = new CreateObjectSample(
             sampleDuration,
-            frames,
+            internAllocationStack(frames),
             id,
             className,
             size
@@ -407,6 +432,13 @@ public class ProfilingConnection {
       }
     }
 
+    private FrameInfo[] internAllocationStack(FrameInfo[] frames) {
+      final FrameInfo[] stack = allocationStacks.get(frames);
+      if (stack != null) return stack;
+      allocationStacks.put(frames, frames);
+      return frames;
+    }
+
     private String getClassName(String className) {
       if (Character.isDigit(className.charAt(0))) {
         className = typeDictionary.get(className);
@@ -437,7 +469,8 @@ public class ProfilingConnection {
     }
 
     private void clearProfilingState() {
-      dictionary.clear();
+      frameDictionary.clear();
+      allocationStacks.clear();
       typeDictionary.clear();
       lastCpuSample = null;
       lastCreateObjectSample = null;
@@ -0,0 +1,72 @@
+package com.jetbrains.actionscript.profiler.model;
+
+import com.jetbrains.actionscript.profiler.sampler.CreateObjectSample;
+import com.jetbrains.actionscript.profiler.sampler.DeleteObjectSample;
+import com.jetbrains.actionscript.profiler.sampler.FrameInfo;
+import com.jetbrains.actionscript.profiler.sampler.ObjectSampleHandler;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class BatchSamplesProcessorTest extends TestCase {
+  private final List<CreateObjectSample> myCreatedObjects = new ArrayList<>();
+  private ProfilerDataConsumer myConsumer;
+  private ProfilingConnection.BatchSamplesProcessor myProcessor;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myConsumer = new ProfilerDataConsumer(new ObjectSampleHandler() {
+      @Override
+      public void processCreateSample(CreateObjectSample createObjectSample) {
+        myCreatedObjects.add(createObjectSample);
+      }
+
+      @Override
+      public void processDeleteSample(DeleteObjectSample deleteObjectSample) {
+      }
+    });
+    myProcessor = new ProfilingConnection.BatchSamplesProcessor(myConsumer);
+  }
+
+  public void testDictionaryFrames() throws IOException {
+    replay("b\0",
+           "s\0" + "10 2", "pkg::Foo/bar()", "pkg::Foo/main()",
+           "s\0" + "5 2", "1", "2",
+           "s\0" + "7 1", "2");
+
+    final Map<FrameInfo, Long> cumulativeTimes = myConsumer.getProfileData().getCallTree().getTimeMaps().getFirst();
+    assertEquals(2, cumulativeTimes.size());
+    for (Map.Entry<FrameInfo, Long> entry : cumulativeTimes.entrySet()) {
+      assertEquals(entry.getKey().toString(), "main".equals(entry.getKey().getMethodName()) ? 22 : 15, entry.getValue().longValue());
+    }
+  }
+
+  public void testEqualAllocationStacksAreShared() throws IOException {
+    replay("b\0",
+           "c\0" + "2 1 pkg::Foo 16", "pkg::Foo/bar()", "pkg::Foo/main()",
+           "c\0" + "2 2 pkg::Foo 16", "1", "2",
+           "c\0" + "2 3 pkg::Foo 16", "pkg::Foo/baz()", "u>:1",
+           "c\0" + "2 4 0 16", "3", "2");
+
+    assertEquals(4, myCreatedObjects.size());
+    assertSame(myCreatedObjects.get(0).frames, myCreatedObjects.get(1).frames);
+    assertNotSame(myCreatedObjects.get(0).frames, myCreatedObjects.get(2).frames);
+    assertSame(myCreatedObjects.get(2).frames, myCreatedObjects.get(3).frames);
+    assertEquals("pkg.Foo", myCreatedObjects.get(3).className);
+  }
+
+  private void replay(String... stream) throws IOException {
+    ProfilingConnection.PacketProcessor.ProcessingResult result = ProfilingConnection.PacketProcessor.ProcessingResult.FINISHED;
+    for (String packet : stream) {
+      if (result == ProfilingConnection.PacketProcessor.ProcessingResult.FINISHED) {
+        myProcessor.startingPacket(packet);
+      }
+      result = myProcessor.process(packet);
+    }
+    assertEquals(ProfilingConnection.PacketProcessor.ProcessingResult.FINISHED, result);
+  }
+}
@@ -0,0 +1,99 @@
+package com.dmarcotte.handlebars.parsing;
+
+import com.dmarcotte.handlebars.HbLanguage;
+import com.intellij.lang.ASTNode;
+import com.intellij.lang.Language;
+import com.intellij.lang.PsiBuilder;
+import com.intellij.lang.PsiBuilderFactory;
+import com.intellij.lexer.Lexer;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.TokenType;
+import com.intellij.psi.impl.source.tree.LazyParseableElement;
+import com.intellij.psi.tree.ICompositeElementType;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.psi.tree.IErrorCounterReparseableElementType;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+
+import static com.dmarcotte.handlebars.parsing.HbTokenTypes.*;
+
+/**
+ * Element type of blocks ({@code {{#...}}...{{/...}}} and their inverse, raw and partial forms) which lets an edit inside
+ * a block reparse only that block instead of the whole template.
+ * <p/>
+ * Blocks are parsed along with the rest of the file, the node is only parsed on its own after it has been reparsed.
+ * A block is reparsed if its new text still holds exactly one block: it starts with a block opener and the open and
+ * close mustaches are balanced, with the outermost block closed by the last mustache of the text.
+ */
+class HbBlockWrapperElementType extends IErrorCounterReparseableElementType implements ICompositeElementType {
+  public HbBlockWrapperElementType(@NotNull @NonNls String debugName) {
+    super(debugName, HbLanguage.INSTANCE);
+  }
+
+  @NotNull
+  @Override
+  public ASTNode createCompositeNode() {
+    // already parsed node, created by HbParser
+    return new LazyParseableElement(this, null);
+  }
+
+  @Override
+  protected ASTNode doParseContents(@NotNull ASTNode chameleon, @NotNull PsiElement psi) {
+    final PsiBuilder builder =
+      PsiBuilderFactory.getInstance().createBuilder(psi.getProject(), chameleon, new HbLexer(), getLanguage(), chameleon.getChars());
+
+    final PsiBuilder.Marker rootMarker = builder.mark();
+    new HbParsing(builder).parseBlockWrapperContents();
+    rootMarker.done(this);
+
+    return builder.getTreeBuilt().getFirstChildNode();
+  }
+
+  @Override
+  public int getErrorsCount(CharSequence seq, Language fileLanguage, Project project) {
+    final Lexer lexer = new HbLexer();
+    lexer.start(seq);
+    if (!BLOCK_OPENING_STACHES.contains(lexer.getTokenType())) return FATAL_ERROR;
+
+    int depth = 0;
+    boolean blockClosed = false;
+    // OPEN_INVERSE is either an inverse block or a `{{^}}` simple inverse depending on the next token
+    boolean inverseOpened = false;
+    IElementType lastTokenType = null;
+
+    for (IElementType tokenType = lexer.getTokenType(); tokenType != null; lexer.advance(), tokenType = lexer.getTokenType()) {
+      if (tokenType == WHITE_SPACE) continue;
+      if (tokenType == INVALID || tokenType == UNCLOSED_COMMENT || tokenType == TokenType.BAD_CHARACTER) return FATAL_ERROR;
+
+      lastTokenType = tokenType;
+      if (blockClosed) {
+        // the close mustache of the outermost block must be the last one
+        if (STATEMENT_STARTS.contains(tokenType)) return FATAL_ERROR;
+        continue;
+      }
+
+      if (inverseOpened) {
+        inverseOpened = false;
+        if (tokenType != CLOSE) {
+          depth++;
+        }
+      }
+
+      if (tokenType == OPEN_BLOCK || tokenType == OPEN_RAW_BLOCK || tokenType == OPEN_PARTIAL_BLOCK) {
+        depth++;
+      }
+      else if (tokenType == OPEN_INVERSE) {
+        inverseOpened = true;
+      }
+      else if (tokenType == OPEN_ENDBLOCK || tokenType == END_RAW_BLOCK) {
+        depth--;
+        blockClosed = depth == 0;
+      }
+
+      if (depth <= 0 && !blockClosed && !inverseOpened) return FATAL_ERROR;
+    }
+
+    return blockClosed && (lastTokenType == CLOSE || lastTokenType == CLOSE_RAW_BLOCK) ? NO_ERRORS : FATAL_ERROR;
+  }
+}
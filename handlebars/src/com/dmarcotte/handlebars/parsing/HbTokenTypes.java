@@ -14,7 +14,7 @@ public class HbTokenTypes {
   private HbTokenTypes() {
   }
 
-  public static final IElementType BLOCK_WRAPPER = new HbCompositeElementType("BLOCK_WRAPPER");
+  public static final IElementType BLOCK_WRAPPER = new HbBlockWrapperElementType("BLOCK_WRAPPER");
     // used to delineate blocks in the PSI tree. The formatter requires this extra structure.
   public static final IElementType OPEN_BLOCK_STACHE = new HbCompositeElementType("OPEN_BLOCK_STACHE");
   public static final IElementType OPEN_PARTIAL_BLOCK_STACHE = new HbCompositeElementType("OPEN_PARTIAL_BLOCK_STACHE");
@@ -76,4 +76,11 @@ public class HbTokenTypes {
   public static final TokenSet STRING_LITERALS = TokenSet.create(STRING);
 
   public static final TokenSet TAGS = TokenSet.create(OPEN_PARTIAL_BLOCK_STACHE, MUSTACHE, OPEN_INVERSE_BLOCK_STACHE, OPEN_BLOCK_STACHE);
+
+  // tokens which may start a BLOCK_WRAPPER (OPEN_INVERSE is a simple inverse when followed by CLOSE)
+  public static final TokenSet BLOCK_OPENING_STACHES = TokenSet.create(OPEN_BLOCK, OPEN_INVERSE, OPEN_RAW_BLOCK, OPEN_PARTIAL_BLOCK);
+  // tokens which start a new statement
+  public static final TokenSet STATEMENT_STARTS = TokenSet.create(OPEN, OPEN_BLOCK, OPEN_PARTIAL, OPEN_PARTIAL_BLOCK, OPEN_ENDBLOCK,
+                                                                  OPEN_INVERSE, OPEN_INVERSE_CHAIN, OPEN_UNESCAPED, OPEN_RAW_BLOCK,
+                                                                  END_RAW_BLOCK, CONTENT, COMMENT, ESCAPE_CHAR);
 }
@@ -0,0 +1,59 @@
+package com.dmarcotte.handlebars.parsing;
+
+import com.dmarcotte.handlebars.HbLanguage;
+import com.dmarcotte.handlebars.file.HbFileType;
+import com.dmarcotte.handlebars.psi.HbBlockWrapper;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.PsiTestUtil;
+import com.intellij.testFramework.fixtures.LightPlatformCodeInsightFixtureTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class HbBlockReparseTest extends LightPlatformCodeInsightFixtureTestCase {
+
+  public void testTypingInNestedBlockKeepsOuterBlock() {
+    doTest("{{#if a}}<div>{{#each b}}<span><caret></span>{{/each}}</div>{{/if}}{{#if c}}{{/if}}", "{{name}}", true);
+  }
+
+  public void testTypingInInverseBlockKeepsOuterBlock() {
+    doTest("{{#if a}}{{^items}}<caret>{{/items}}{{/if}}", "text {{^}} more", true);
+  }
+
+  public void testOpeningBlockReparsesOuterBlock() {
+    doTest("{{#if a}}{{#each b}}<caret>{{/each}}{{/if}}", "{{#with c}}", false);
+  }
+
+  public void testClosingBlockReparsesOuterBlock() {
+    doTest("{{#if a}}{{#each b}}<caret>{{/each}}{{/if}}", "{{/each}}{{#each c}}", false);
+  }
+
+  public void testUnclosedCommentReparsesOuterBlock() {
+    doTest("{{#if a}}{{#each b}}<caret>{{/each}}{{/if}}", "{{!-- comment", false);
+  }
+
+  private void doTest(String text, String textToType, boolean outerBlockKept) {
+    myFixture.configureByText(HbFileType.INSTANCE, text);
+    final HbBlockWrapper outerBlock = getBlocks().get(0);
+
+    // the document is changed directly to avoid closing mustaches inserted by the typed handler
+    WriteCommandAction.runWriteCommandAction(getProject(), () -> myFixture.getEditor().getDocument()
+      .insertString(myFixture.getCaretOffset(), textToType));
+    PsiDocumentManager.getInstance(getProject()).commitAllDocuments();
+
+    final List<HbBlockWrapper> blocks = getBlocks();
+    assertEquals(outerBlockKept, blocks.contains(outerBlock));
+    PsiTestUtil.checkFileStructure(getHbFile());
+  }
+
+  private List<HbBlockWrapper> getBlocks() {
+    return new ArrayList<>(PsiTreeUtil.findChildrenOfType(getHbFile(), HbBlockWrapper.class));
+  }
+
+  private PsiFile getHbFile() {
+    return myFixture.getFile().getViewProvider().getPsi(HbLanguage.INSTANCE);
+  }
+}
@@ -36,6 +36,8 @@ import java.util.Set;
 public class BundleManifest {
   private final Map<String, String> myMap;
   private final PsiFile mySource;
+  // parsed header values; manifest is immutable, and the inspection queries the same headers for every class reference
+  private final Map<String, Set<String>> myValues = ContainerUtil.newConcurrentMap();
 
   public BundleManifest(@NotNull Map<String, String> map) {
     this(map, null);
@@ -109,7 +111,12 @@ public class BundleManifest {
   }
 
   private Set<String> getValues(String header) {
-    String value = get(header);
-    return StringUtil.isEmptyOrSpaces(value) ? Collections.<String>emptySet() : new Parameters(value).keySet();
+    Set<String> values = myValues.get(header);
+    if (values == null) {
+      String value = get(header);
+      values = StringUtil.isEmptyOrSpaces(value) ? Collections.<String>emptySet() : new Parameters(value).keySet();
+      myValues.put(header, values);
+    }
+    return values;
   }
 }
\ No newline at end of file
@@ -51,6 +51,7 @@ import org.osmorc.util.OsgiPsiUtil;
 import javax.swing.*;
 import java.lang.annotation.RetentionPolicy;
 import java.util.List;
+import java.util.Map;
 
 import static org.osmorc.i18n.OsmorcBundle.message;
 
@@ -81,11 +82,21 @@ public class PackageAccessibilityInspection extends BaseJavaBatchLocalInspection
     }
 
     final List<ProblemDescriptor> problems = ContainerUtil.newSmartList();
+    // a class is usually referenced from many places in a file, check it once
+    final Map<PsiClass, Problem> checkedClasses = ContainerUtil.newHashMap();
     DependenciesBuilder.analyzeFileDependencies(file, new DependenciesBuilder.DependencyProcessor() {
       @Override
       public void process(PsiElement place, PsiElement dependency) {
         if (dependency instanceof PsiClass) {
-          Problem problem = checkAccessibility((PsiClass)dependency, facet);
+          PsiClass targetClass = (PsiClass)dependency;
+          Problem problem;
+          if (checkedClasses.containsKey(targetClass)) {
+            problem = checkedClasses.get(targetClass);
+          }
+          else {
+            problem = checkAccessibility(targetClass, facet);
+            checkedClasses.put(targetClass, problem);
+          }
           if (problem != null) {
             problems.add(manager.createProblemDescriptor(place, problem.message, isOnTheFly, problem.fixes, problem.type));
           }
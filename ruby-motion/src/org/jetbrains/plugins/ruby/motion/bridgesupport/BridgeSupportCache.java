@@ -0,0 +1,266 @@
+package org.jetbrains.plugins.ruby.motion.bridgesupport;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.IOUtil;
+import gnu.trove.TObjectIntHashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps parsed frameworks in the system directory in a compact binary form, so that several MB large bridgesupport files
+ * of each SDK are not parsed again on every project opening. Cached data is valid while the bridgesupport file has
+ * the same length and timestamp. Strings are written once per cache file and then referenced by index.
+ */
+class BridgeSupportCache {
+  private static final Logger LOG = Logger.getInstance(BridgeSupportCache.class);
+  private static final int FORMAT_VERSION = 1;
+
+  private static final byte CONSTANT = 0;
+  private static final byte STRING_CONSTANT = 1;
+  private static final byte ENUM = 2;
+
+  private BridgeSupportCache() {
+  }
+
+  @Nullable
+  static Framework load(@NotNull VirtualFile bridgeSupport, @NotNull String name, @NotNull String version, boolean osx) {
+    final File cacheFile = getCacheFile(bridgeSupport, name, version);
+    if (!cacheFile.isFile()) return null;
+
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+      if (in.readInt() != FORMAT_VERSION ||
+          !bridgeSupport.getPath().equals(in.readUTF()) ||
+          in.readLong() != bridgeSupport.getLength() ||
+          in.readLong() != bridgeSupport.getTimeStamp() ||
+          in.readBoolean() != osx) {
+        return null;
+      }
+      final Framework framework = new Reader(in).readFramework(name, version, osx);
+      framework.seal();
+      return framework;
+    }
+    catch (IOException e) {
+      LOG.info("Failed to load cached framework " + name + " from " + cacheFile, e);
+      FileUtil.delete(cacheFile);
+      return null;
+    }
+  }
+
+  static void save(@NotNull VirtualFile bridgeSupport, @NotNull Framework framework) {
+    final File cacheFile = getCacheFile(bridgeSupport, framework.getName(), framework.getVersion());
+    FileUtil.createParentDirs(cacheFile);
+
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cacheFile)))) {
+      out.writeInt(FORMAT_VERSION);
+      out.writeUTF(bridgeSupport.getPath());
+      out.writeLong(bridgeSupport.getLength());
+      out.writeLong(bridgeSupport.getTimeStamp());
+      out.writeBoolean(framework.isOSX());
+      new Writer(out).writeFramework(framework);
+    }
+    catch (IOException e) {
+      LOG.info("Failed to cache framework " + framework.getName() + " to " + cacheFile, e);
+      FileUtil.delete(cacheFile);
+    }
+  }
+
+  @NotNull
+  private static File getCacheFile(@NotNull VirtualFile bridgeSupport, @NotNull String name, @NotNull String version) {
+    final String fileName = FileUtil.sanitizeFileName(name) + "." + Integer.toHexString(bridgeSupport.getPath().hashCode());
+    return new File(PathManager.getSystemPath(), "rubymotion/bridgesupport/" + FileUtil.sanitizeFileName(version) + "/" + fileName);
+  }
+
+  private static class Writer {
+    private final DataOutputStream myOut;
+    private final TObjectIntHashMap<String> myStrings = new TObjectIntHashMap<>();
+
+    private Writer(DataOutputStream out) {
+      myOut = out;
+    }
+
+    private void writeFramework(Framework framework) throws IOException {
+      writeClasses(framework.getClasses());
+      writeClasses(framework.getProtocols());
+      writeFunctions(framework.getFunctions());
+
+      DataInputOutputUtil.writeINT(myOut, framework.getStructs().size());
+      for (Struct struct : framework.getStructs()) {
+        writeString(struct.getName());
+        DataInputOutputUtil.writeINT(myOut, struct.getFields().size());
+        for (String field : struct.getFields()) {
+          writeString(field);
+          writeString(struct.getFieldType(field));
+        }
+      }
+
+      DataInputOutputUtil.writeINT(myOut, framework.getConstants().size());
+      for (Constant constant : framework.getConstants()) {
+        if (constant instanceof StringConstant) {
+          myOut.writeByte(STRING_CONSTANT);
+          writeString(constant.getName());
+          writeString(((StringConstant)constant).getValue());
+          myOut.writeBoolean(((StringConstant)constant).isNsString());
+        }
+        else if (constant instanceof Enum) {
+          myOut.writeByte(ENUM);
+          writeString(constant.getName());
+          writeString(((Enum)constant).getValue());
+        }
+        else {
+          myOut.writeByte(CONSTANT);
+          writeString(constant.getName());
+          writeString(constant.getDeclaredType());
+        }
+      }
+
+      DataInputOutputUtil.writeINT(myOut, framework.getFunctionAliases().size());
+      for (Map.Entry<String, String> entry : framework.getFunctionAliases().entrySet()) {
+        writeString(entry.getKey());
+        writeString(entry.getValue());
+      }
+    }
+
+    private void writeClasses(Collection<Class> classes) throws IOException {
+      DataInputOutputUtil.writeINT(myOut, classes.size());
+      for (Class clazz : classes) {
+        writeString(clazz.getName());
+        writeFunctions(clazz.getFunctions());
+        writeClasses(clazz.getSubClasses());
+      }
+    }
+
+    private void writeFunctions(Collection<Function> functions) throws IOException {
+      DataInputOutputUtil.writeINT(myOut, functions.size());
+      for (Function function : functions) {
+        writeString(function.getName());
+        myOut.writeBoolean(function.isVariadic());
+        myOut.writeBoolean(function.isClassMethod());
+        writeString(function.getReturnValue());
+        DataInputOutputUtil.writeINT(myOut, function.getArguments().size());
+        for (Pair<String, String> argument : function.getArguments()) {
+          writeString(argument.first);
+          writeString(argument.second);
+        }
+      }
+    }
+
+    // 0 stands for null, 1 is followed by a string that is seen for the first time, n > 1 refers to the (n - 2)th written string
+    private void writeString(@Nullable String s) throws IOException {
+      if (s == null) {
+        DataInputOutputUtil.writeINT(myOut, 0);
+        return;
+      }
+      if (myStrings.containsKey(s)) {
+        DataInputOutputUtil.writeINT(myOut, myStrings.get(s) + 2);
+        return;
+      }
+      myStrings.put(s, myStrings.size());
+      DataInputOutputUtil.writeINT(myOut, 1);
+      IOUtil.writeUTF(myOut, s);
+    }
+  }
+
+  private static class Reader {
+    private final DataInputStream myIn;
+    private final List<String> myStrings = new ArrayList<>();
+
+    private Reader(DataInputStream in) {
+      myIn = in;
+    }
+
+    private Framework readFramework(String name, String version, boolean osx) throws IOException {
+      final Framework framework = new Framework(name, version, osx);
+      for (Class clazz : readClasses()) {
+        framework.addClass(clazz);
+      }
+      for (Class protocol : readClasses()) {
+        framework.addProtocol(protocol);
+      }
+      readFunctions(framework);
+
+      for (int i = DataInputOutputUtil.readINT(myIn); i > 0; i--) {
+        final Struct struct = new Struct(readString());
+        for (int j = DataInputOutputUtil.readINT(myIn); j > 0; j--) {
+          struct.addField(readString(), readString());
+        }
+        struct.seal();
+        framework.addStruct(struct);
+      }
+
+      for (int i = DataInputOutputUtil.readINT(myIn); i > 0; i--) {
+        final byte kind = myIn.readByte();
+        final String constantName = readString();
+        if (kind == STRING_CONSTANT) {
+          framework.addConstant(new StringConstant(constantName, readString(), myIn.readBoolean()));
+        }
+        else if (kind == ENUM) {
+          framework.addConstant(new Enum(constantName, readString()));
+        }
+        else if (kind == CONSTANT) {
+          framework.addConstant(new Constant(constantName, readString()));
+        }
+        else {
+          throw new IOException("Unexpected constant kind: " + kind);
+        }
+      }
+
+      for (int i = DataInputOutputUtil.readINT(myIn); i > 0; i--) {
+        framework.addFunctionAlias(readString(), readString());
+      }
+      return framework;
+    }
+
+    private List<Class> readClasses() throws IOException {
+      final int count = DataInputOutputUtil.readINT(myIn);
+      final List<Class> result = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        final Class clazz = new Class(readString());
+        readFunctions(clazz);
+        for (Class subClass : readClasses()) {
+          clazz.addSubClass(subClass);
+        }
+        clazz.seal();
+        result.add(clazz);
+      }
+      return result;
+    }
+
+    private void readFunctions(FunctionHolder holder) throws IOException {
+      for (int i = DataInputOutputUtil.readINT(myIn); i > 0; i--) {
+        final Function function = new Function(readString(), myIn.readBoolean(), myIn.readBoolean());
+        function.setReturnValue(readString());
+        for (int j = DataInputOutputUtil.readINT(myIn); j > 0; j--) {
+          function.addArgument(readString(), readString());
+        }
+        holder.addFunction(function);
+      }
+    }
+
+    @Nullable
+    private String readString() throws IOException {
+      final int ref = DataInputOutputUtil.readINT(myIn);
+      if (ref == 0) return null;
+      if (ref == 1) {
+        // declared types are interned by BridgeSupportReader as well, this keeps them shared between frameworks
+        final String s = IOUtil.readUTF(myIn).intern();
+        myStrings.add(s);
+        return s;
+      }
+      if (ref - 2 >= myStrings.size()) {
+        throw new IOException("Unexpected string reference: " + ref);
+      }
+      return myStrings.get(ref - 2);
+    }
+  }
+}
@@ -23,6 +23,8 @@ public class FrameworkInfo {
   private SoftReference<Framework> myFramework = null;
   private SoftReference<Set<String>> myIdSelectorNames = null;
   private SoftReference<Set<String>> mySelectorNames = null;
+  // timestamp of the bridgesupport file which failed to be read, so that it is not read again on each request
+  private long myFailedFileStamp = -1;
 
   public FrameworkInfo(@NotNull String name, @NotNull String version, boolean isOSX, @NotNull String bridgeSupportFilePath) {
     myBridgeSupportPath = bridgeSupportFilePath;
@@ -56,13 +58,21 @@ public class FrameworkInfo {
 
   private Trinity<Framework, Set<String>, Set<String>> reloadFramework() {
     VirtualFile file = LocalFileSystem.getInstance().findFileByPath(myBridgeSupportPath);
-    if (file == null) return Trinity.create(null, null, null);
+    if (file == null || file.getTimeStamp() == myFailedFileStamp) return Trinity.create(null, null, null);
 
     Set<String> idSelectorNames = null;
     Set<String> selectorNames = null;
     Framework framework = null;
     try {
-      framework = BridgeSupportReader.read(myName, myVersion, file.getInputStream(), myOSX);
+      framework = BridgeSupportCache.load(file, myName, myVersion, myOSX);
+      if (framework == null) {
+        framework = BridgeSupportReader.read(myName, myVersion, file.getInputStream(), myOSX);
+        if (framework == null) {
+          myFailedFileStamp = file.getTimeStamp();
+          return Trinity.create(null, null, null);
+        }
+        BridgeSupportCache.save(file, framework);
+      }
       idSelectorNames = ContainerUtil.newHashSet();
       selectorNames = ContainerUtil.newHashSet();
       for (Class clazz : framework.getClasses()) {
@@ -21,6 +21,9 @@ import com.intellij.lang.ognl.psi.resolve.OgnlResolveUtil;
 import com.intellij.lang.ognl.psi.resolve.variable.OgnlVariableReference;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.psi.*;
+import com.intellij.psi.impl.source.resolve.ResolveCache;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.util.CommonProcessors;
 import com.intellij.util.Function;
 import com.intellij.util.containers.ContainerUtil;
@@ -39,13 +42,18 @@ abstract class OgnlVariableExpressionBase extends OgnlExpressionImpl {
   @Nullable
   @Override
   public PsiReference getReference() {
-    return new OgnlVariableReferencePsiReference(this);
+    // the same reference instance is needed to reuse its ResolveCache entry
+    return CachedValuesManager.getCachedValue(this, () -> CachedValueProvider.Result
+      .create(new OgnlVariableReferencePsiReference(this), this));
   }
 
   private static class OgnlVariableReferencePsiReference extends PsiReferenceBase.Poly<PsiElement> {
 
     private static final Function<OgnlVariableReference, PsiElementResolveResult> RESOLVE_FUNCTION =
       reference -> new PsiElementResolveResult(reference.getNavigationElement());
+    // contributors are queried for every variable expression, cache results until the next PSI change
+    private static final ResolveCache.PolyVariantResolver<OgnlVariableReferencePsiReference> RESOLVER =
+      (reference, incompleteCode) -> reference.doMultiResolve();
     private static final Function<OgnlVariableReference, Object> VARIANT_FUNCTION =
       element -> LookupElementBuilder.create(element.getNavigationElement(), element.getName())
         .withIcon(element.getIcon(0))
@@ -59,6 +67,11 @@ abstract class OgnlVariableExpressionBase extends OgnlExpressionImpl {
     @NotNull
     @Override
     public ResolveResult[] multiResolve(boolean incompleteCode) {
+      return ResolveCache.getInstance(getElement().getProject()).resolveWithCaching(this, RESOLVER, false, incompleteCode);
+    }
+
+    @NotNull
+    private ResolveResult[] doMultiResolve() {
       final String name = getValue();
 
       final CommonProcessors.CollectProcessor<OgnlVariableReference> processor =